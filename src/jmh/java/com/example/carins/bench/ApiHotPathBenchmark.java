@@ -0,0 +1,110 @@
+package com.example.carins.bench;
+
+import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.carins.CarInsuranceApplication;
+import com.example.carins.repo.InsurancePolicyRepository;
+import com.example.carins.service.CarHistoryService;
+import com.example.carins.service.CarService;
+import com.example.carins.web.dto.CarFilter;
+import com.example.carins.web.dto.CarPage;
+import com.example.carins.web.dto.HistoryPage;
+
+/**
+ * Latency of the API hot paths against an H2 database holding a synthetic fleet of {@code cars}
+ * cars (about five policies each). Each parameter combination boots its own application context
+ * on a fresh in-memory database; the fleet is loaded before the in-memory indexes are primed, like
+ * data already present at startup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ApiHotPathBenchmark {
+
+    /** Synthetic car ids start after the two demo cars. */
+    private static final long FIRST_CAR_ID = 3;
+
+    @Param({ "200", "20000", "200000" })
+    public int cars;
+
+    @Param({ "false", "true" })
+    public boolean policyIndex;
+
+    private ConfigurableApplicationContext context;
+    private CarService carService;
+    private CarHistoryService historyService;
+    private InsurancePolicyRepository policyRepository;
+
+    @Setup(Level.Trial)
+    public void start() {
+        // command-line arguments, so they win over application.properties
+        context = new SpringApplicationBuilder(CarInsuranceApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:bench-" + cars + "-" + policyIndex + ";DB_CLOSE_DELAY=-1",
+                        "--carins.policy-index.enabled=" + policyIndex,
+                        "--carins.synthetic.cars=" + cars,
+                        "--carins.synthetic.as-of=2025-06-30",
+                        "--logging.level.root=WARN");
+        carService = context.getBean(CarService.class);
+        historyService = context.getBean(CarHistoryService.class);
+        policyRepository = context.getBean(InsurancePolicyRepository.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    private long randomCar() {
+        return FIRST_CAR_ID + ThreadLocalRandom.current().nextInt(cars);
+    }
+
+    private static LocalDate randomDate() {
+        return LocalDate.of(2023, 1, 1).plusDays(ThreadLocalRandom.current().nextInt(900));
+    }
+
+    @Benchmark
+    public boolean isInsuranceValid() {
+        return carService.isInsuranceValid(randomCar(), randomDate());
+    }
+
+    @Benchmark
+    public boolean existsActiveOnDate() {
+        return policyRepository.existsActiveOnDate(randomCar(), randomDate());
+    }
+
+    /** First history page as served by GET /api/cars/{id}/history, which now runs it on the history bulkhead. */
+    @Benchmark
+    public HistoryPage getCarHistory() {
+        return historyService.getHistory(randomCar(), null, null, null, 100);
+    }
+
+    /** Page of cars as served by GET /api/cars; the CarDto projection replaced CarController.toDto. */
+    @Benchmark
+    public CarPage listCarsPage() {
+        long after = randomCar() - 1;
+        return carService.findCars(CarFilter.NONE, after, 100);
+    }
+}
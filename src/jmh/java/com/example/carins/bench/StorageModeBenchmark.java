@@ -0,0 +1,132 @@
+package com.example.carins.bench;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import com.example.carins.CarInsuranceApplication;
+import com.example.carins.repo.InsurancePolicyRepository;
+import com.example.carins.service.CarHistoryService;
+import com.example.carins.service.ClaimService;
+import com.example.carins.web.dto.HistoryPage;
+import com.example.carins.web.dto.InsuranceClaimDto;
+
+/**
+ * Throughput of database-bound reads and writes with the in-memory H2 database ({@code mem})
+ * against the persistent, memory-mapped one of the file-store profile ({@code file}), both holding
+ * a synthetic fleet of {@code cars} cars. The validity check goes to the JPQL query, not the
+ * in-memory policy index, so both modes are measured on the storage itself.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StorageModeBenchmark {
+
+    @Param({ "mem", "file" })
+    public String storage;
+
+    @Param({ "20000" })
+    public int cars;
+
+    private Path dataDir;
+    private ConfigurableApplicationContext context;
+    private InsurancePolicyRepository policyRepository;
+    private CarHistoryService historyService;
+    private ClaimService claimService;
+
+    @Setup(Level.Trial)
+    public void start() throws IOException {
+        dataDir = Files.createTempDirectory("carins-storage");
+        context = StorageMode.start(storage, dataDir, cars);
+        policyRepository = context.getBean(InsurancePolicyRepository.class);
+        historyService = context.getBean(CarHistoryService.class);
+        claimService = context.getBean(ClaimService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws IOException {
+        context.close();
+        FileSystemUtils.deleteRecursively(dataDir);
+    }
+
+    private long randomCar() {
+        return StorageMode.randomCar(cars);
+    }
+
+    @Benchmark
+    public boolean existsActiveOnDate() {
+        return policyRepository.existsActiveOnDate(randomCar(), LocalDate.of(2023, 1, 1)
+                .plusDays(ThreadLocalRandom.current().nextInt(900)));
+    }
+
+    @Benchmark
+    public HistoryPage getCarHistory() {
+        return historyService.getHistory(randomCar(), null, null, null, 100);
+    }
+
+    /** One claim per transaction, as POST /api/cars/{id}/claims writes it. */
+    @Benchmark
+    public List<Long> registerClaim() {
+        InsuranceClaimDto dto = new InsuranceClaimDto();
+        dto.setClaimDate(LocalDate.of(2025, 6, 1));
+        dto.setDescription("Benchmark claim");
+        dto.setAmount(new BigDecimal("850.00"));
+        return claimService.registerClaims(randomCar(), List.of(dto));
+    }
+
+    /** Boots the application on either storage mode with a synthetic fleet loaded on first start. */
+    static final class StorageMode {
+
+        /** Synthetic car ids start after the two demo cars. */
+        private static final long FIRST_CAR_ID = 3;
+
+        private StorageMode() {
+        }
+
+        static ConfigurableApplicationContext start(String storage, Path dataDir, int cars) {
+            String store = switch (storage) {
+                case "mem" -> "--spring.datasource.url=jdbc:h2:mem:storage-bench";
+                case "file" -> "--carins.file-store.path=" + dataDir.resolve("carins");
+                default -> throw new IllegalArgumentException("storage must be mem or file");
+            };
+            // command-line arguments, so they win over application.properties and the profile file
+            return new SpringApplicationBuilder(CarInsuranceApplication.class)
+                    .web(WebApplicationType.NONE)
+                    .profiles(storage.equals("file") ? new String[] { "file-store" } : new String[0])
+                    .run(store,
+                            "--carins.synthetic.cars=" + cars,
+                            "--carins.synthetic.as-of=2025-06-30",
+                            "--logging.level.root=WARN");
+        }
+
+        static long randomCar(int cars) {
+            return FIRST_CAR_ID + ThreadLocalRandom.current().nextInt(cars);
+        }
+    }
+}
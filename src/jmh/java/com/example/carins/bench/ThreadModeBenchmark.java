@@ -0,0 +1,116 @@
+package com.example.carins.bench;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.carins.CarInsuranceApplication;
+
+/**
+ * Burst load over HTTP against the embedded Tomcat, comparing platform request threads with
+ * virtual threads ({@code spring.threads.virtual.enabled}) at the same Hikari pool size.
+ * 256 client threads issue blocking requests back to back, far more than the pool has
+ * connections, so the difference is how each mode queues work in front of the pool.
+ * <p>
+ * So that only the thread model differs, the adaptive concurrency limit is off and the validity
+ * and history endpoints run inline on the request thread instead of on their bulkhead executors
+ * (fixed platform pools in both modes). Any non-2xx response fails the run: a fast 503 would
+ * otherwise count as throughput.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(256)
+@Fork(1)
+public class ThreadModeBenchmark {
+
+    /** Synthetic car ids start after the two demo cars. */
+    private static final long FIRST_CAR_ID = 3;
+
+    @Param({ "platform", "virtual" })
+    public String threadMode;
+
+    @Param({ "10" })
+    public int poolSize;
+
+    @Param({ "20000" })
+    public int cars;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private String baseUrl;
+
+    @Setup(Level.Trial)
+    public void start() {
+        // command-line arguments, so they win over application.properties
+        context = new SpringApplicationBuilder(CarInsuranceApplication.class)
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:threads-" + threadMode + ";DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.hikari.maximum-pool-size=" + poolSize,
+                        "--spring.threads.virtual.enabled=" + threadMode.equals("virtual"),
+                        "--carins.concurrency-limit.enabled=false",
+                        "--carins.async.validity.threads=0",
+                        "--carins.async.history.threads=0",
+                        "--carins.synthetic.cars=" + cars,
+                        "--carins.synthetic.as-of=2025-06-30",
+                        "--logging.level.root=WARN");
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        baseUrl = "http://localhost:" + port + "/api/cars/";
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        client.close();
+        context.close();
+    }
+
+    private long randomCar() {
+        return FIRST_CAR_ID + ThreadLocalRandom.current().nextInt(cars);
+    }
+
+    private int get(String path) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build();
+        int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        if (status < 200 || status >= 300) {
+            throw new IllegalStateException("GET " + path + " returned " + status);
+        }
+        return status;
+    }
+
+    @Benchmark
+    public int insuranceValid() throws IOException, InterruptedException {
+        LocalDate date = LocalDate.of(2023, 1, 1).plusDays(ThreadLocalRandom.current().nextInt(900));
+        return get(randomCar() + "/insurance-valid?date=" + date);
+    }
+
+    @Benchmark
+    public int carHistory() throws IOException, InterruptedException {
+        return get(randomCar() + "/history");
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.carins.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import com.example.carins.repo.InsurancePolicyRepository;
+
+/**
+ * Time from booting the application until its first answered query, with a fleet of {@code cars}
+ * cars. The in-memory database starts empty on every boot and loads the fleet again; the file
+ * store is loaded once before measuring and every boot reopens it, migrated and indexed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class WarmRestartBenchmark {
+
+    @Param({ "mem", "file" })
+    public String storage;
+
+    @Param({ "20000" })
+    public int cars;
+
+    private Path dataDir;
+    private ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void seed() throws IOException {
+        dataDir = Files.createTempDirectory("carins-restart");
+        if (storage.equals("file")) {
+            StorageModeBenchmark.StorageMode.start(storage, dataDir, cars).close();
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void stop() {
+        context.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void delete() throws IOException {
+        FileSystemUtils.deleteRecursively(dataDir);
+    }
+
+    @Benchmark
+    public boolean restartUntilFirstQuery() {
+        context = StorageModeBenchmark.StorageMode.start(storage, dataDir, cars);
+        return context.getBean(InsurancePolicyRepository.class)
+                .existsActiveOnDate(StorageModeBenchmark.StorageMode.randomCar(cars), LocalDate.of(2025, 1, 1));
+    }
+}
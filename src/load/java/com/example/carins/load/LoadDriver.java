@@ -0,0 +1,326 @@
+package com.example.carins.load;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Replays a weighted mix of API requests against a running instance at a constant arrival rate
+ * (open model): request i is due at {@code start + i / rate} whether or not earlier ones have
+ * returned, and each is sent from its own virtual thread. Response time is measured from the
+ * due time, not from when the request was actually sent, so stalls in the server or the driver
+ * show up in the percentiles instead of silently lowering the offered load (coordinated
+ * omission). Service time, measured from the send, is reported next to it.
+ *
+ * <p>Requests that time out, and requests dropped because {@code max-in-flight} was reached, are
+ * recorded in the response-time histogram too, at the time from their due time until they timed
+ * out (or would have, for a dropped one). Counting them only would leave the percentiles
+ * describing the requests that happened to get through, exactly when the server is saturated.
+ *
+ * <p>Options, as {@code name=value} or {@code --name=value}:
+ * <ul>
+ * <li>{@code base-url} (http://localhost:8080)</li>
+ * <li>{@code rate} requests per second (200)</li>
+ * <li>{@code duration} measured ISO-8601 duration (PT60S), after {@code warmup} (PT10S)</li>
+ * <li>{@code mix} weights per operation (insurance-valid=80,history=10,cars=5,claim=3,policy=2)</li>
+ * <li>{@code cars} how many car ids to discover from /api/cars and pick from (10000)</li>
+ * <li>{@code max-in-flight} requests outstanding before new ones are dropped (5000)</li>
+ * <li>{@code timeout} per request (PT10S), {@code seed} for the request sequence (42)</li>
+ * <li>{@code hgrm} directory to write one HdrHistogram percentile file per operation (none)</li>
+ * </ul>
+ */
+public final class LoadDriver {
+
+    private static final Map<String, String> DEFAULTS = Map.of(
+            "base-url", "http://localhost:8080",
+            "rate", "200",
+            "duration", "PT60S",
+            "warmup", "PT10S",
+            "mix", "insurance-valid=80,history=10,cars=5,claim=3,policy=2",
+            "cars", "10000",
+            "max-in-flight", "5000",
+            "timeout", "PT10S",
+            "seed", "42",
+            "hgrm", "");
+
+    private final HttpClient client;
+    private final Semaphore inFlight;
+    private final long timeoutNanos;
+    private final Map<Operation, Stats> stats = new EnumMap<>(Operation.class);
+
+    private LoadDriver(HttpClient client, int maxInFlight, Duration timeout) {
+        this.client = client;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.timeoutNanos = timeout.toNanos();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        URI base = URI.create(options.get("base-url"));
+        double rate = Double.parseDouble(options.get("rate"));
+        Duration warmup = Duration.parse(options.get("warmup"));
+        Duration duration = Duration.parse(options.get("duration"));
+        Duration timeout = Duration.parse(options.get("timeout"));
+        Map<Operation, Integer> mix = parseMix(options.get("mix"));
+        if (rate <= 0) {
+            throw new IllegalArgumentException("rate must be positive.");
+        }
+
+        try (ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor()) {
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(timeout)
+                    .build();
+            LoadDriver driver = new LoadDriver(client, Integer.parseInt(options.get("max-in-flight")), timeout);
+            long[] carIds = driver.discoverCars(base, Integer.parseInt(options.get("cars")), timeout);
+            Operation.Target target = new Operation.Target(base, carIds, LocalDate.now(), timeout);
+            System.out.printf("Offering %.0f req/s for %s after %s warmup against %s (%d cars), mix %s%n",
+                    rate, duration, warmup, base, carIds.length, options.get("mix"));
+
+            long started = driver.run(threads, target, mix, new SplittableRandom(Long.parseLong(options.get("seed"))),
+                    rate, warmup, duration);
+            threads.shutdown();
+            if (!threads.awaitTermination(timeout.toMillis() + 1_000, TimeUnit.MILLISECONDS)) {
+                System.out.println("Some requests were still outstanding after the timeout.");
+            }
+            driver.report(System.out, duration, System.nanoTime() - started);
+            String hgrm = options.get("hgrm");
+            if (!hgrm.isBlank()) {
+                driver.writeDistributions(Path.of(hgrm));
+            }
+        }
+    }
+
+    /**
+     * Issues requests at their due times until warmup plus duration have passed, and returns the
+     * nanoTime at which measurement started. Only requests due after the warmup are recorded.
+     */
+    private long run(ExecutorService threads, Operation.Target target, Map<Operation, Integer> mix,
+            SplittableRandom random, double rate, Duration warmup, Duration duration) {
+        Operation[] ops = mix.keySet().toArray(Operation[]::new);
+        int[] cumulative = new int[ops.length];
+        int totalWeight = 0;
+        for (int i = 0; i < ops.length; i++) {
+            totalWeight += mix.get(ops[i]);
+            cumulative[i] = totalWeight;
+            stats.put(ops[i], new Stats());
+        }
+        double intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+        for (long i = 0;; i++) {
+            long due = start + (long) (i * intervalNanos);
+            if (due >= end) {
+                break;
+            }
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            int pick = random.nextInt(totalWeight);
+            int index = 0;
+            while (cumulative[index] <= pick) {
+                index++;
+            }
+            Operation op = ops[index];
+            HttpRequest request = target.build(op, random);
+            boolean measured = due >= measureFrom;
+            if (!inFlight.tryAcquire()) {
+                if (measured) {
+                    // never sent, so it would have waited out the whole timeout
+                    stats.get(op).drop(System.nanoTime() - due + timeoutNanos);
+                }
+                continue;
+            }
+            threads.execute(() -> send(op, request, due, measured));
+        }
+        return measureFrom;
+    }
+
+    private void send(Operation op, HttpRequest request, long due, boolean measured) {
+        long sent = System.nanoTime();
+        try {
+            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+            long done = System.nanoTime();
+            if (measured) {
+                stats.get(op).record(response.statusCode(), done - due, done - sent);
+            }
+        } catch (HttpTimeoutException ex) {
+            long done = System.nanoTime();
+            if (measured) {
+                stats.get(op).timeout(done - due, done - sent);
+            }
+        } catch (IOException ex) {
+            if (measured) {
+                stats.get(op).failed.increment();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            inFlight.release();
+        }
+    }
+
+    private long[] discoverCars(URI base, int max, Duration timeout) throws IOException, InterruptedException {
+        ObjectMapper json = new ObjectMapper();
+        long[] ids = new long[max];
+        int found = 0;
+        Long after = null;
+        while (found < max) {
+            String query = "/api/cars?limit=1000" + (after == null ? "" : "&after=" + after);
+            HttpResponse<String> response = client.send(
+                    HttpRequest.newBuilder(base.resolve(query)).timeout(timeout).GET().build(),
+                    HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("GET " + query + " returned " + response.statusCode());
+            }
+            JsonNode page = json.readTree(response.body());
+            for (JsonNode car : page) {
+                if (found < max) {
+                    ids[found++] = car.get("id").asLong();
+                }
+            }
+            if (page.size() < 1000) {
+                break;
+            }
+            after = ids[found - 1];
+        }
+        if (found == 0) {
+            throw new IllegalStateException("No cars found at " + base + "; seed some data first.");
+        }
+        return Arrays.copyOf(ids, found);
+    }
+
+    private void report(PrintStream out, Duration duration, long elapsedNanos) {
+        double seconds = duration.toNanos() / 1e9;
+        out.printf("%nMeasured over %s (%.1f s until the last response)%n", duration, elapsedNanos / 1e9);
+        out.printf("%-16s %9s %8s %8s %8s %8s %8s %9s %9s %9s %9s %11s%n", "operation", "requests", "req/s", "non-2xx",
+                "failed", "timeout", "dropped", "p50 ms", "p99 ms", "p99.9 ms", "max ms", "svc p99 ms");
+        Histogram all = new Histogram(3);
+        stats.forEach((op, s) -> {
+            Histogram response = s.response.copy();
+            all.add(response);
+            out.printf("%-16s %9d %8.1f %8d %8d %8d %8d %9.2f %9.2f %9.2f %9.2f %11.2f%n", op.label(),
+                    response.getTotalCount(), response.getTotalCount() / seconds, s.rejected.sum(),
+                    s.failed.sum(), s.timedOut.sum(), s.dropped.sum(),
+                    millis(response, 50), millis(response, 99), millis(response, 99.9),
+                    response.getMaxValue() / 1e6, millis(s.service.copy(), 99));
+        });
+        out.printf("%-16s %9d %8.1f %8s %8s %8s %8s %9.2f %9.2f %9.2f %9.2f%n", "all", all.getTotalCount(),
+                all.getTotalCount() / seconds, "", "", "", "", millis(all, 50), millis(all, 99), millis(all, 99.9),
+                all.getMaxValue() / 1e6);
+        long dropped = stats.values().stream().mapToLong(s -> s.dropped.sum()).sum();
+        if (dropped > 0) {
+            out.printf("%d requests were dropped because max-in-flight was reached; the offered rate was not sustained. "
+                    + "They are in the percentiles at the request timeout.%n", dropped);
+        }
+    }
+
+    private void writeDistributions(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        for (Map.Entry<Operation, Stats> entry : stats.entrySet()) {
+            try (PrintStream out = new PrintStream(Files.newOutputStream(dir.resolve(entry.getKey().label() + ".hgrm")))) {
+                entry.getValue().response.copy().outputPercentileDistribution(out, 1e6);
+            }
+        }
+        System.out.println("Percentile distributions (ms) written to " + dir);
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1e6;
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>(DEFAULTS);
+        for (String arg : args) {
+            int from = arg.startsWith("--") ? 2 : 0;
+            int eq = arg.indexOf('=');
+            if (eq <= from) {
+                throw new IllegalArgumentException("Expected name=value, got '" + arg + "'.");
+            }
+            String name = arg.substring(from, eq);
+            if (!DEFAULTS.containsKey(name)) {
+                throw new IllegalArgumentException("Unknown option " + name + ", expected one of " + DEFAULTS.keySet() + ".");
+            }
+            options.put(name, arg.substring(eq + 1));
+        }
+        return options;
+    }
+
+    private static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String part : mix.split(",")) {
+            String[] pair = part.trim().split("=");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Expected operation=weight in mix, got '" + part + "'.");
+            }
+            int weight = Integer.parseInt(pair[1].trim());
+            if (weight > 0) {
+                weights.put(Operation.of(pair[0].trim()), weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("mix needs at least one operation with a positive weight.");
+        }
+        return weights;
+    }
+
+    /**
+     * Per-operation results; histograms hold nanoseconds and are written from many virtual threads.
+     * The response histogram holds answered, timed-out and dropped requests.
+     */
+    private static final class Stats {
+
+        final Histogram response = new ConcurrentHistogram(3);
+        final Histogram service = new ConcurrentHistogram(3);
+        final LongAdder rejected = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        final LongAdder timedOut = new LongAdder();
+        final LongAdder dropped = new LongAdder();
+
+        void timeout(long responseNanos, long serviceNanos) {
+            response.recordValue(responseNanos);
+            service.recordValue(serviceNanos);
+            timedOut.increment();
+        }
+
+        void drop(long responseNanos) {
+            response.recordValue(responseNanos);
+            dropped.increment();
+        }
+
+        void record(int status, long responseNanos, long serviceNanos) {
+            response.recordValue(responseNanos);
+            service.recordValue(serviceNanos);
+            if (status < 200 || status >= 300) {
+                rejected.increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.carins.load;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.SplittableRandom;
+
+/** One kind of request in the traffic mix, named as it appears in {@code mix} and the report. */
+enum Operation {
+
+    VALID("insurance-valid") {
+        @Override
+        HttpRequest.Builder request(Target target, SplittableRandom random) {
+            LocalDate date = target.today().minusDays(random.nextInt(3 * 365)).plusDays(random.nextInt(365));
+            return get(target.uri("/api/cars/" + target.randomCar(random) + "/insurance-valid?date=" + date));
+        }
+    },
+    HISTORY("history") {
+        @Override
+        HttpRequest.Builder request(Target target, SplittableRandom random) {
+            return get(target.uri("/api/cars/" + target.randomCar(random) + "/history"));
+        }
+    },
+    CARS("cars") {
+        @Override
+        HttpRequest.Builder request(Target target, SplittableRandom random) {
+            return get(target.uri("/api/cars?limit=100&after=" + (target.randomCar(random) - 1)));
+        }
+    },
+    CLAIM("claim") {
+        @Override
+        HttpRequest.Builder request(Target target, SplittableRandom random) {
+            String body = "{\"claimDate\":\"" + target.today().minusDays(random.nextInt(365))
+                    + "\",\"description\":\"Load test\",\"amount\":" + (100 + random.nextInt(5_000)) + ".50}";
+            return post(target.uri("/api/cars/" + target.randomCar(random) + "/claims"), body);
+        }
+    },
+    POLICY("policy") {
+        @Override
+        HttpRequest.Builder request(Target target, SplittableRandom random) {
+            // one-day policies on distinct far-future days never overlap, so writes are not turned into 409s
+            LocalDate day = target.nextPolicyDay();
+            String body = "{\"carId\":" + target.randomCar(random) + ",\"provider\":\"LoadTest\",\"startDate\":\""
+                    + day + "\",\"endDate\":\"" + day + "\"}";
+            return post(target.uri("/api/policies"), body);
+        }
+    };
+
+    private final String label;
+
+    Operation(String label) {
+        this.label = label;
+    }
+
+    String label() {
+        return label;
+    }
+
+    abstract HttpRequest.Builder request(Target target, SplittableRandom random);
+
+    static Operation of(String label) {
+        for (Operation op : values()) {
+            if (op.label.equals(label)) {
+                return op;
+            }
+        }
+        throw new IllegalArgumentException("Unknown operation '" + label + "', expected one of: insurance-valid, history, cars, claim, policy.");
+    }
+
+    private static HttpRequest.Builder get(URI uri) {
+        return HttpRequest.newBuilder(uri).GET();
+    }
+
+    private static HttpRequest.Builder post(URI uri, String json) {
+        return HttpRequest.newBuilder(uri)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json));
+    }
+
+    /** What the requests point at: the base URI, the known car ids and a counter of policy days. */
+    static final class Target {
+
+        private static final LocalDate FIRST_POLICY_DAY = LocalDate.of(2200, 1, 1);
+
+        private final URI base;
+        private final long[] carIds;
+        private final LocalDate today;
+        private final Duration timeout;
+        private long policyDays;
+
+        Target(URI base, long[] carIds, LocalDate today, Duration timeout) {
+            this.base = base;
+            this.carIds = carIds;
+            this.today = today;
+            this.timeout = timeout;
+        }
+
+        URI uri(String path) {
+            return base.resolve(path);
+        }
+
+        long randomCar(SplittableRandom random) {
+            return carIds[random.nextInt(carIds.length)];
+        }
+
+        LocalDate today() {
+            return today;
+        }
+
+        LocalDate nextPolicyDay() {
+            return FIRST_POLICY_DAY.plusDays(policyDays++);
+        }
+
+        HttpRequest build(Operation op, SplittableRandom random) {
+            return op.request(this, random).timeout(timeout).build();
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.carins.load;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starts the extracted application jar once per configuration and repetition and records, from
+ * process launch, the time until {@code /actuator/health/readiness} answers 200 and the time until
+ * the first API request sent after that has been answered. The second number is what a new
+ * instance behind a load balancer costs: it includes work that lazy initialisation moved out of
+ * startup and into the first request.
+ *
+ * <p>Configurations: {@code baseline}, {@code lazy} (Spring profile fast-start), {@code aot}
+ * ({@code -Dspring.aot.enabled=true}), {@code cds} (the training-run archive) and {@code all}.
+ * Options, as {@code name=value}: {@code jar} and {@code archive} (set by the fast-start Maven
+ * profile), {@code configs} (all five), {@code repeats} (3), {@code timeout} per start (PT120S)
+ * and {@code request} (the path of the first request).
+ */
+public final class StartupHarness {
+
+    private static final Map<String, String> DEFAULTS = Map.of(
+            "jar", "",
+            "archive", "",
+            "configs", "baseline,lazy,aot,cds,all",
+            "repeats", "3",
+            "timeout", "PT120S",
+            "request", "/api/cars/1/insurance-valid?date=2025-01-01");
+
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+    private final Map<String, String> options;
+    private final Path logs;
+
+    private StartupHarness(Map<String, String> options) {
+        this.options = options;
+        this.logs = Path.of(options.get("jar")).resolveSibling("logs");
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>(DEFAULTS);
+        for (String arg : args) {
+            int from = arg.startsWith("--") ? 2 : 0;
+            int eq = arg.indexOf('=');
+            if (eq <= from || !DEFAULTS.containsKey(arg.substring(from, eq))) {
+                throw new IllegalArgumentException("Expected name=value with name one of " + DEFAULTS.keySet() + ", got '" + arg + "'.");
+            }
+            options.put(arg.substring(from, eq), arg.substring(eq + 1));
+        }
+        if (options.get("jar").isBlank() || !Files.isRegularFile(Path.of(options.get("jar")))) {
+            throw new IllegalArgumentException("jar must point at the extracted application jar; run through mvn -Pfast-start verify.");
+        }
+        new StartupHarness(options).run();
+    }
+
+    private void run() throws IOException, InterruptedException {
+        Files.createDirectories(logs);
+        int repeats = Integer.parseInt(options.get("repeats"));
+        Map<String, long[][]> results = new LinkedHashMap<>();
+        for (String config : options.get("configs").split(",")) {
+            config = config.trim();
+            long[][] runs = new long[repeats][];
+            for (int i = 0; i < repeats; i++) {
+                runs[i] = start(config, i);
+                System.out.printf("%-9s run %d: ready %d ms, first request %d ms%n", config, i + 1, runs[i][0], runs[i][1]);
+            }
+            results.put(config, runs);
+        }
+
+        System.out.printf("%n%-9s %11s %11s %19s %19s%n", "config", "ready p50", "ready min", "first request p50",
+                "first request min");
+        results.forEach((config, runs) -> System.out.printf("%-9s %8d ms %8d ms %16d ms %16d ms%n", config,
+                median(runs, 0), min(runs, 0), median(runs, 1), min(runs, 1)));
+        System.out.println("Application logs are in " + logs);
+    }
+
+    /** Launches one instance and returns {ms to readiness, ms to the first answered request}. */
+    private long[] start(String config, int run) throws IOException, InterruptedException {
+        int port = freePort();
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmOptions(config));
+        command.addAll(List.of("-jar", options.get("jar"), "--server.port=" + port));
+        if (config.equals("lazy") || config.equals("all")) {
+            command.add("--spring.profiles.active=fast-start");
+        }
+        Path log = logs.resolve(config + "-" + (run + 1) + ".log");
+        long deadline = System.nanoTime() + Duration.parse(options.get("timeout")).toNanos();
+
+        long launched = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log.toFile()).start();
+        try {
+            URI base = URI.create("http://localhost:" + port);
+            awaitOk(process, base.resolve("/actuator/health/readiness"), deadline, log);
+            long ready = System.nanoTime();
+            awaitOk(process, base.resolve(options.get("request")), deadline, log);
+            long answered = System.nanoTime();
+            return new long[] { TimeUnit.NANOSECONDS.toMillis(ready - launched),
+                    TimeUnit.NANOSECONDS.toMillis(answered - launched) };
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    private List<String> jvmOptions(String config) {
+        return switch (config) {
+            case "baseline", "lazy" -> List.of();
+            case "aot" -> List.of("-Dspring.aot.enabled=true");
+            case "cds" -> List.of("-XX:SharedArchiveFile=" + archive());
+            case "all" -> List.of("-Dspring.aot.enabled=true", "-XX:SharedArchiveFile=" + archive());
+            default -> throw new IllegalArgumentException("Unknown config '" + config + "', expected one of "
+                    + DEFAULTS.get("configs") + ".");
+        };
+    }
+
+    private String archive() {
+        String archive = options.get("archive");
+        if (archive.isBlank() || !Files.isRegularFile(Path.of(archive))) {
+            throw new IllegalArgumentException("archive must point at the CDS archive from the training run.");
+        }
+        return archive;
+    }
+
+    /** Polls until the URI answers 200, failing if the process exits or the deadline passes. */
+    private void awaitOk(Process process, URI uri, long deadline, Path log) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(10)).GET().build();
+        while (true) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Application exited with " + process.exitValue() + ", see " + log);
+            }
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException("No 200 from " + uri + " before the timeout, see " + log);
+            }
+            try {
+                if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException ex) {
+                // not listening or not answering yet
+            }
+            Thread.sleep(5);
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static long median(long[][] runs, int column) {
+        long[] values = Arrays.stream(runs).mapToLong(r -> r[column]).sorted().toArray();
+        return values[values.length / 2];
+    }
+
+    private static long min(long[][] runs, int column) {
+        return Arrays.stream(runs).mapToLong(r -> r[column]).min().orElse(0);
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.carins.model;
+
+import org.springframework.beans.factory.ObjectProvider;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * JPA entity listener that forwards writes to every {@link EntityWriteObserver} bean. Hibernate
+ * obtains it from the Spring context while the entity manager factory is being built, so the
+ * observers, which usually need repositories, are resolved lazily on the first write.
+ */
+public class EntityWriteListener {
+
+    private final ObjectProvider<EntityWriteObserver> observers;
+
+    public EntityWriteListener(ObjectProvider<EntityWriteObserver> observers) {
+        this.observers = observers;
+    }
+
+    @PostPersist
+    public void afterPersist(Object entity) {
+        observers.orderedStream().forEach(o -> o.afterPersist(entity));
+    }
+
+    @PostUpdate
+    public void afterUpdate(Object entity) {
+        observers.orderedStream().forEach(o -> o.afterUpdate(entity));
+    }
+
+    @PostRemove
+    public void afterRemove(Object entity) {
+        observers.orderedStream().forEach(o -> o.afterRemove(entity));
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.carins.model;
+
+/**
+ * Told about entity writes by {@link EntityWriteListener}. Implemented by beans that keep
+ * in-memory state derived from the tables in step with whatever code path writes them, without
+ * the entities having to know about those beans.
+ */
+public interface EntityWriteObserver {
+
+    default void afterPersist(Object entity) {
+    }
+
+    default void afterUpdate(Object entity) {
+    }
+
+    default void afterRemove(Object entity) {
+    }
+}
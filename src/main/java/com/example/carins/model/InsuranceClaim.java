@@ -4,20 +4,25 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import jakarta.validation.constraints.NotNull;
 
 @Entity
 @Table(name = "insuranceclaim")
+@EntityListeners(EntityWriteListener.class)
 public class InsuranceClaim {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // pooled sequence instead of IDENTITY: ids are known before the insert, so inserts can be batched
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "insuranceclaim_seq")
+    @SequenceGenerator(name = "insuranceclaim_seq", sequenceName = "insuranceclaim_seq", allocationSize = 500)
     private Long id;
 
     @ManyToOne(optional = false, fetch = FetchType.LAZY)
@@ -3,20 +3,25 @@ package com.example.carins.model;
 import java.time.LocalDate;
 
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import jakarta.validation.constraints.NotNull;
 
 @Entity
 @Table(name = "insurancepolicy")
+@EntityListeners(EntityWriteListener.class)
 public class InsurancePolicy {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // pooled sequence instead of IDENTITY, so bulk imports can batch their inserts
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "insurancepolicy_seq")
+    @SequenceGenerator(name = "insurancepolicy_seq", sequenceName = "insurancepolicy_seq", allocationSize = 500)
     private Long id;
 
     @ManyToOne(optional = false, fetch = FetchType.LAZY)
@@ -1,11 +1,17 @@
 package com.example.carins.model;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 
 @Entity
 @Table(name = "owner")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@EntityListeners(EntityWriteListener.class)
 public class Owner {
     @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -0,0 +1,39 @@
+package com.example.carins.model;
+
+import java.time.LocalDate;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * A policy whose expiry has been logged, with the end date it was logged for. A policy whose
+ * end date changes afterwards no longer matches its entry and is logged again.
+ */
+@Entity
+@Table(name = "policy_expiry_log")
+public class PolicyExpiryLogEntry {
+
+    @Id
+    private Long policyId;
+
+    @Column(nullable = false)
+    private LocalDate endDate;
+
+    public PolicyExpiryLogEntry() {
+    }
+
+    public PolicyExpiryLogEntry(Long policyId, LocalDate endDate) {
+        this.policyId = policyId;
+        this.endDate = endDate;
+    }
+
+    public Long getPolicyId() {
+        return policyId;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+}
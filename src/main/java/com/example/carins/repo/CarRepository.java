@@ -1,10 +1,14 @@
 package com.example.carins.repo;
 
 import com.example.carins.model.*;
+import com.example.carins.web.dto.CarDto;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,5 +17,40 @@ public interface CarRepository extends JpaRepository<Car, Long> {
     // TODO: enforce unique VIN at DB and via validation (exercise)
     @EntityGraph(attributePaths = {"owner"})
     List<Car> findAll();
+
+    /** Loads a car with its owner, for responses that serialise the entity. */
+    @EntityGraph(attributePaths = {"owner"})
+    Optional<Car> findWithOwnerById(Long id);
+
+    // cached in the query cache when the second-level cache is enabled (SecondLevelCacheConfiguration)
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<Car> findByVin(String vin);
+
+    @Query("select c.id from Car c where c.id in :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Keyset page of cars after the given id, projected straight into {@link CarDto} so no
+     * {@code Car}/{@code Owner} entities are managed. {@code null} filters match everything.
+     */
+    @Query("select new com.example.carins.web.dto.CarDto(c.id, c.vin, c.make, c.model, c.yearOfManufacture, o.id, o.name, o.email) " +
+           "from Car c join c.owner o " +
+           "where c.id > :afterId " +
+           "and (:make is null or c.make = :make) " +
+           "and (:model is null or c.model = :model) " +
+           "and (:year is null or c.yearOfManufacture = :year) " +
+           "and (:ownerId is null or o.id = :ownerId) " +
+           "order by c.id")
+    List<CarDto> findPageAfter(@Param("afterId") long afterId,
+                               @Param("make") String make,
+                               @Param("model") String model,
+                               @Param("year") Integer year,
+                               @Param("ownerId") Long ownerId,
+                               Limit limit);
+
+    @Query("select c.id from Car c")
+    List<Long> findAllIds();
+
+    @Query("select c.id from Car c where c.id > :id")
+    List<Long> findIdsGreaterThan(@Param("id") long id);
 }
\ No newline at end of file
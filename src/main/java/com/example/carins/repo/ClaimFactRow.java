@@ -0,0 +1,10 @@
+package com.example.carins.repo;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * A claim flattened for analytics: its car, date and amount plus the provider of the policy
+ * active on the claim date ({@code null} when the car was uninsured that day).
+ */
+public record ClaimFactRow(Long claimId, Long carId, LocalDate claimDate, BigDecimal amount, String provider) {}
@@ -0,0 +1,14 @@
+package com.example.carins.repo;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import com.example.carins.web.dto.ClaimHistoryEvent;
+
+/** A claim as a history event, tagged with its car; used to build every car's history in one pass. */
+public record ClaimHistoryRow(Long carId, Long claimId, LocalDate claimDate, String description, BigDecimal amount) {
+
+    public ClaimHistoryEvent toEvent() {
+        return new ClaimHistoryEvent(claimId, claimDate, description, amount);
+    }
+}
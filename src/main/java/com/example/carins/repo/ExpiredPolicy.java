@@ -0,0 +1,6 @@
+package com.example.carins.repo;
+
+import java.time.LocalDate;
+
+/** Projection of an expired policy carrying only what the expiry log needs. */
+public record ExpiredPolicy(Long policyId, Long carId, LocalDate endDate) {}
@@ -1,12 +1,51 @@
 package com.example.carins.repo;
 
+import java.time.LocalDate;
 import java.util.List;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.example.carins.model.InsuranceClaim;
+import com.example.carins.web.dto.ClaimHistoryEvent;
 
 public interface InsuranceClaimRepository extends JpaRepository<InsuranceClaim, Long> {
 
     List<InsuranceClaim> findByCarIdOrderByClaimDateAsc(Long carId);
+
+    /**
+     * A car's claims as history events, ordered by (claimDate, id) and restricted to an optional
+     * date range. When {@code afterDate} is set, only events after (afterDate, afterId) are returned.
+     */
+    @Query("select new com.example.carins.web.dto.ClaimHistoryEvent(c.id, c.claimDate, c.description, c.amount) "
+            + "from InsuranceClaim c "
+            + "where c.car.id = :carId "
+            + "and (:from is null or c.claimDate >= :from) "
+            + "and (:to is null or c.claimDate <= :to) "
+            + "and (:afterDate is null or c.claimDate > :afterDate or (c.claimDate = :afterDate and c.id > :afterId)) "
+            + "order by c.claimDate, c.id")
+    List<ClaimHistoryEvent> findHistory(@Param("carId") Long carId,
+            @Param("from") LocalDate from,
+            @Param("to") LocalDate to,
+            @Param("afterDate") LocalDate afterDate,
+            @Param("afterId") Long afterId,
+            Limit limit);
+
+    /** Every claim as a history event, ordered by car and then like {@link #findHistory}. */
+    @Query("select new com.example.carins.repo.ClaimHistoryRow(c.car.id, c.id, c.claimDate, c.description, c.amount) "
+            + "from InsuranceClaim c "
+            + "order by c.car.id, c.claimDate, c.id")
+    List<ClaimHistoryRow> findAllHistoryRows();
+
+    /**
+     * Every claim with the provider of the policy covering it, ordered by (claimDate, id). A claim
+     * covered by several legacy overlapping policies appears once per policy, lowest policy id first.
+     */
+    @Query("select new com.example.carins.repo.ClaimFactRow(c.id, c.car.id, c.claimDate, c.amount, p.provider) "
+            + "from InsuranceClaim c "
+            + "left join InsurancePolicy p on p.car = c.car and p.startDate <= c.claimDate and p.endDate >= c.claimDate "
+            + "order by c.claimDate, c.id, p.id")
+    List<ClaimFactRow> findAllFacts();
 }
@@ -1,10 +1,13 @@
 package com.example.carins.repo;
 
 import com.example.carins.model.*;
+import com.example.carins.web.dto.PolicyHistoryEvent;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,4 +22,66 @@ public interface InsurancePolicyRepository extends JpaRepository<InsurancePolicy
     boolean existsActiveOnDate(@Param("carId") Long carId, @Param("date") LocalDate date);
 
     List<InsurancePolicy> findByCarId(Long carId);
-}
\ No newline at end of file
+
+    @Query("select new com.example.carins.repo.PolicyPeriod(p.id, p.car.id, p.startDate, p.endDate) " +
+           "from InsurancePolicy p " +
+           "order by p.car.id, p.startDate")
+    List<PolicyPeriod> findAllPeriods();
+
+    @Query("select new com.example.carins.repo.PolicyPeriod(p.id, p.car.id, p.startDate, p.endDate) " +
+           "from InsurancePolicy p " +
+           "where p.car.id = :carId " +
+           "order by p.startDate")
+    List<PolicyPeriod> findPeriodsByCarId(@Param("carId") Long carId);
+
+    @Query("select new com.example.carins.repo.PolicyPeriod(p.id, p.car.id, p.startDate, p.endDate) " +
+           "from InsurancePolicy p " +
+           "where p.car.id in :carIds")
+    List<PolicyPeriod> findPeriodsByCarIdIn(@Param("carIds") Collection<Long> carIds);
+
+    /**
+     * A car's policies as history events, ordered by (startDate, id) and restricted to an optional
+     * start-date range. When {@code afterDate} is set, only events after (afterDate, afterId) are returned.
+     */
+    @Query("select new com.example.carins.web.dto.PolicyHistoryEvent(p.id, p.startDate, p.endDate, p.provider) " +
+           "from InsurancePolicy p " +
+           "where p.car.id = :carId " +
+           "and p.startDate is not null " +
+           "and (:from is null or p.startDate >= :from) " +
+           "and (:to is null or p.startDate <= :to) " +
+           "and (:afterDate is null or p.startDate > :afterDate or (p.startDate = :afterDate and p.id > :afterId)) " +
+           "order by p.startDate, p.id")
+    List<PolicyHistoryEvent> findHistory(@Param("carId") Long carId,
+                                         @Param("from") LocalDate from,
+                                         @Param("to") LocalDate to,
+                                         @Param("afterDate") LocalDate afterDate,
+                                         @Param("afterId") Long afterId,
+                                         Limit limit);
+
+    /** Every dated policy as a history event, ordered by car and then like {@link #findHistory}. */
+    @Query("select new com.example.carins.repo.PolicyHistoryRow(p.car.id, p.id, p.startDate, p.endDate, p.provider) " +
+           "from InsurancePolicy p " +
+           "where p.startDate is not null " +
+           "order by p.car.id, p.startDate, p.id")
+    List<PolicyHistoryRow> findAllHistoryRows();
+
+    /**
+     * Policies that ended in [from, today) and have not been logged for their current end date, in
+     * (endDate, id) order. Backed by the index on {@code end_date} and the log's primary key.
+     */
+    @Query("select new com.example.carins.repo.ExpiredPolicy(p.id, p.car.id, p.endDate) " +
+           "from InsurancePolicy p " +
+           "where p.endDate >= :from and p.endDate < :today " +
+           "and not exists (select 1 from PolicyExpiryLogEntry e where e.policyId = p.id and e.endDate = p.endDate) " +
+           "order by p.endDate, p.id")
+    List<ExpiredPolicy> findUnloggedExpiredBetween(@Param("from") LocalDate from,
+                                                   @Param("today") LocalDate today,
+                                                   Limit limit);
+
+    /** Policies whose end date lies within [from, to], in (endDate, id) order. */
+    @Query("select new com.example.carins.repo.ExpiredPolicy(p.id, p.car.id, p.endDate) " +
+           "from InsurancePolicy p " +
+           "where p.endDate between :from and :to " +
+           "order by p.endDate, p.id")
+    List<ExpiredPolicy> findEndingBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
@@ -0,0 +1,22 @@
+package com.example.carins.repo;
+
+import java.time.LocalDate;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.carins.model.PolicyExpiryLogEntry;
+
+@Repository
+public interface PolicyExpiryLogRepository extends JpaRepository<PolicyExpiryLogEntry, Long> {
+
+    /** Drops entries for expiries older than the scanned window; they can no longer be logged twice. */
+    @Transactional
+    @Modifying
+    @Query("delete from PolicyExpiryLogEntry e where e.endDate < :before")
+    int deleteEndedBefore(@Param("before") LocalDate before);
+}
@@ -0,0 +1,13 @@
+package com.example.carins.repo;
+
+import java.time.LocalDate;
+
+import com.example.carins.web.dto.PolicyHistoryEvent;
+
+/** A policy as a history event, tagged with its car; used to build every car's history in one pass. */
+public record PolicyHistoryRow(Long carId, Long policyId, LocalDate startDate, LocalDate endDate, String provider) {
+
+    public PolicyHistoryEvent toEvent() {
+        return new PolicyHistoryEvent(policyId, startDate, endDate, provider);
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.carins.repo;
+
+import java.time.LocalDate;
+
+/**
+ * Lightweight projection of an insurance policy's validity interval, used where
+ * only the dates matter and loading full {@code InsurancePolicy} entities would be wasteful.
+ */
+public record PolicyPeriod(Long policyId, Long carId, LocalDate startDate, LocalDate endDate) {}
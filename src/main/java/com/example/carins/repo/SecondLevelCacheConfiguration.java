@@ -0,0 +1,65 @@
+package com.example.carins.repo;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.example.carins.model.Car;
+import com.example.carins.model.Owner;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+
+/**
+ * Opt-in Hibernate second-level and query cache ({@code carins.l2-cache.enabled=true}) for the
+ * read-mostly {@link Car} and {@link Owner} entities and {@link CarRepository#findByVin}. Regions
+ * live in-process in Caffeine, bounded by {@code carins.l2-cache.max-size} entries each and expired
+ * {@code carins.l2-cache.ttl} after being written. Writes through JPA invalidate the entries
+ * they touch and every cached query over the written tables; hit and miss counts per region are
+ * exported through the Hibernate statistics metrics.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "carins.l2-cache.enabled", havingValue = "true")
+public class SecondLevelCacheConfiguration {
+
+    static final String QUERY_RESULTS_REGION = "default-query-results-region";
+    static final String UPDATE_TIMESTAMPS_REGION = "default-update-timestamps-region";
+
+    @Bean(destroyMethod = "close")
+    CacheManager secondLevelCacheManager(@Value("${carins.l2-cache.max-size:10000}") long maxSize,
+            @Value("${carins.l2-cache.ttl:PT10M}") Duration ttl) {
+        // the provider is JVM-wide: a fixed URI would hand every context the same manager and its caches
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("carins-l2-" + UUID.randomUUID()), getClass().getClassLoader());
+        for (String region : List.of(Car.class.getName(), Owner.class.getName(), QUERY_RESULTS_REGION)) {
+            CaffeineConfiguration<Object, Object> config = new CaffeineConfiguration<>();
+            config.setMaximumSize(OptionalLong.of(maxSize));
+            config.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+            cacheManager.createCache(region, config);
+        }
+        // must outlive every cached query result, or stale results could be served after a write
+        cacheManager.createCache(UPDATE_TIMESTAMPS_REGION, new CaffeineConfiguration<>());
+        return cacheManager;
+    }
+
+    @Bean
+    HibernatePropertiesCustomizer secondLevelCacheProperties(CacheManager secondLevelCacheManager) {
+        return properties -> {
+            properties.put("hibernate.cache.use_second_level_cache", true);
+            properties.put("hibernate.cache.use_query_cache", true);
+            properties.put("hibernate.cache.region.factory_class", "jcache");
+            properties.put("hibernate.javax.cache.cache_manager", secondLevelCacheManager);
+            properties.put("hibernate.javax.cache.missing_cache_strategy", "fail");
+        };
+    }
+}
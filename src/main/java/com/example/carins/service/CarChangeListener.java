@@ -0,0 +1,35 @@
+package com.example.carins.service;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import com.example.carins.model.Car;
+import com.example.carins.model.EntityWriteObserver;
+
+/**
+ * Keeps in-memory car lookups consistent with whatever code path writes cars. The identity
+ * cache is resolved lazily because it needs the car repository.
+ */
+@Component
+public class CarChangeListener implements EntityWriteObserver {
+
+    private final ObjectProvider<CarIdentityCache> identityCache;
+
+    public CarChangeListener(ObjectProvider<CarIdentityCache> identityCache) {
+        this.identityCache = identityCache;
+    }
+
+    @Override
+    public void afterPersist(Object entity) {
+        if (entity instanceof Car car) {
+            identityCache.ifAvailable(c -> c.onCarPersisted(car.getId()));
+        }
+    }
+
+    @Override
+    public void afterRemove(Object entity) {
+        if (entity instanceof Car car) {
+            identityCache.ifAvailable(c -> c.onCarRemoved(car.getId()));
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.carins.service;
+
+import java.util.Set;
+
+/**
+ * Published by {@link DataVersions} once writes to these cars, or to their policies or claims,
+ * have committed. Covers every JPA write path, including bulk claims and policy imports.
+ */
+public record CarDataChangedEvent(Set<Long> carIds) {}
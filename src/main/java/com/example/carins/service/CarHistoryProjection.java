@@ -0,0 +1,181 @@
+package com.example.carins.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.carins.repo.ClaimHistoryRow;
+import com.example.carins.repo.InsuranceClaimRepository;
+import com.example.carins.repo.InsurancePolicyRepository;
+import com.example.carins.repo.PolicyHistoryRow;
+import com.example.carins.web.dto.ClaimHistoryEvent;
+import com.example.carins.web.dto.PolicyHistoryEvent;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Optional read model holding every car's history as a {@link CarTimeline}, so a history page is
+ * one map lookup plus a binary search instead of two queries and a merge. Enabled with
+ * {@code carins.history-projection.enabled=true}; it is built from the policy and claim tables
+ * when the application is ready. When a write to a car commits ({@link CarDataChangedEvent}) the
+ * car's timeline is dropped before its ETag moves, and rebuilt on a background thread once the
+ * writer has released its connection; in between, and after a rebuild has failed for good, that car
+ * is read with the queries. Until the build finishes, readers use the queries.
+ */
+@Component
+public class CarHistoryProjection {
+
+    private static final Logger log = LoggerFactory.getLogger(CarHistoryProjection.class);
+    static final int MAX_ATTEMPTS = 5;
+    private static final long RETRY_DELAY_MS = 100;
+
+    private final InsurancePolicyRepository policyRepository;
+    private final InsuranceClaimRepository claimRepository;
+    private final TransactionTemplate readTransaction;
+    private final boolean enabled;
+    private final ScheduledExecutorService rebuilds;
+    private final Map<Long, CarTimeline> timelines = new ConcurrentHashMap<>();
+    /** Cars whose timeline is out of date, each with the token of the rebuild that may replace it. */
+    private final Map<Long, Object> stale = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+
+    @Autowired
+    public CarHistoryProjection(InsurancePolicyRepository policyRepository, InsuranceClaimRepository claimRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${carins.history-projection.enabled:false}") boolean enabled) {
+        this(policyRepository, claimRepository, transactionManager, enabled, Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("history-projection").daemon().factory()));
+    }
+
+    CarHistoryProjection(InsurancePolicyRepository policyRepository, InsuranceClaimRepository claimRepository,
+            PlatformTransactionManager transactionManager, boolean enabled, ScheduledExecutorService rebuilds) {
+        this.policyRepository = policyRepository;
+        this.claimRepository = claimRepository;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.enabled = enabled;
+        this.rebuilds = rebuilds;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuilds.shutdownNow();
+    }
+
+    /** True when the projection is enabled and fully built, i.e. it can replace the history queries. */
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    /** The car's timeline, or {@code null} while it is being rebuilt and must be read with the queries. */
+    CarTimeline timeline(Long carId) {
+        CarTimeline timeline = timelines.getOrDefault(carId, CarTimeline.EMPTY);
+        return stale.containsKey(carId) ? null : timeline;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        long started = System.nanoTime();
+        List<PolicyHistoryRow> policies = policyRepository.findAllHistoryRows();
+        List<ClaimHistoryRow> claims = claimRepository.findAllHistoryRows();
+        // both lists are ordered by car: walk them side by side, one car at a time
+        int i = 0;
+        int j = 0;
+        List<PolicyHistoryEvent> carPolicies = new ArrayList<>();
+        List<ClaimHistoryEvent> carClaims = new ArrayList<>();
+        while (i < policies.size() || j < claims.size()) {
+            long carId = Math.min(i < policies.size() ? policies.get(i).carId() : Long.MAX_VALUE,
+                    j < claims.size() ? claims.get(j).carId() : Long.MAX_VALUE);
+            for (; i < policies.size() && policies.get(i).carId() == carId; i++) {
+                carPolicies.add(policies.get(i).toEvent());
+            }
+            for (; j < claims.size() && claims.get(j).carId() == carId; j++) {
+                carClaims.add(claims.get(j).toEvent());
+            }
+            // a timeline rebuilt by a write during the load is at least as recent as the snapshot
+            timelines.putIfAbsent(carId, CarTimeline.of(List.copyOf(carPolicies), List.copyOf(carClaims)));
+            carPolicies.clear();
+            carClaims.clear();
+        }
+        ready = true;
+        log.info("Car history projection loaded {} policies and {} claims for {} cars in {} ms",
+                policies.size(), claims.size(), timelines.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * Runs on the committing thread before the ETags move: marks the cars stale so nobody is served
+     * their old timeline under a new tag, and leaves the rebuild to the background thread.
+     */
+    @EventListener
+    public void onCarDataChanged(CarDataChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        for (Long carId : event.carIds()) {
+            Object token = new Object();
+            stale.put(carId, token);
+            schedule(carId, token, 0);
+        }
+    }
+
+    private void schedule(Long carId, Object token, int attempt) {
+        try {
+            rebuilds.schedule(() -> refresh(carId, token, attempt),
+                    attempt == 0 ? 0 : RETRY_DELAY_MS << (attempt - 1), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException ex) {
+            // shutting down: the car stays stale and is read with the queries
+        }
+    }
+
+    /**
+     * Reads the car's rows in a transaction of its own, then installs them unless a later write has
+     * marked the car stale again in the meantime. A failed read is retried with backoff; after the
+     * last attempt the car stays stale, so it is read with the queries rather than from old data.
+     */
+    void refresh(Long carId, Object token, int attempt) {
+        if (stale.get(carId) != token) {
+            return;
+        }
+        CarTimeline rebuilt;
+        try {
+            rebuilt = readTransaction.execute(status -> CarTimeline.of(
+                    policyRepository.findHistory(carId, null, null, null, null, Limit.unlimited()),
+                    claimRepository.findHistory(carId, null, null, null, null, Limit.unlimited())));
+        } catch (RuntimeException ex) {
+            if (attempt + 1 < MAX_ATTEMPTS) {
+                log.warn("Rebuilding the history of car {} failed, retrying: {}", carId, ex.toString());
+                schedule(carId, token, attempt + 1);
+            } else {
+                log.error("Rebuilding the history of car {} failed {} times; serving it from the database",
+                        carId, MAX_ATTEMPTS, ex);
+            }
+            return;
+        }
+        timelines.compute(carId, (id, current) -> {
+            if (stale.get(id) != token) {
+                return current;
+            }
+            return rebuilt.isEmpty() ? null : rebuilt;
+        });
+        stale.remove(carId, token);
+    }
+}
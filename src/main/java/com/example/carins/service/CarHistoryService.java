@@ -0,0 +1,126 @@
+package com.example.carins.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import com.example.carins.repo.InsuranceClaimRepository;
+import com.example.carins.repo.InsurancePolicyRepository;
+import com.example.carins.web.dto.ClaimHistoryEvent;
+import com.example.carins.web.dto.HistoryEvent;
+import com.example.carins.web.dto.HistoryPage;
+import com.example.carins.web.dto.PolicyHistoryEvent;
+
+/**
+ * Builds a car's chronological history from its policies and claims. Both sources are read
+ * already ordered and limited to one page, then merged; events are ordered by date, with
+ * policies before claims on the same date and ids breaking remaining ties. When the
+ * {@link CarHistoryProjection} is ready, pages are cut from its in-memory timeline instead.
+ */
+@Service
+public class CarHistoryService {
+
+    static final Comparator<HistoryEvent> TIMELINE_ORDER = Comparator
+            .comparing(HistoryEvent::eventDate)
+            .thenComparingInt(HistoryEvent::typeOrder)
+            .thenComparing(HistoryEvent::eventId);
+
+    private final InsurancePolicyRepository policyRepository;
+    private final InsuranceClaimRepository claimRepository;
+    private final CarHistoryProjection projection;
+
+    public CarHistoryService(InsurancePolicyRepository policyRepository, InsuranceClaimRepository claimRepository,
+            CarHistoryProjection projection) {
+        this.policyRepository = policyRepository;
+        this.claimRepository = claimRepository;
+        this.projection = projection;
+    }
+
+    /**
+     * Returns up to {@code limit} events dated within [from, to] (either bound optional),
+     * continuing after {@code cursor} when given.
+     *
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public HistoryPage getHistory(Long carId, LocalDate from, LocalDate to, String cursor, int limit) {
+        Cursor after = cursor != null ? Cursor.decode(cursor) : null;
+        CarTimeline timeline = projection.isReady() ? projection.timeline(carId) : null;
+        if (timeline != null) {
+            return toPage(timeline.events(from, to, after, limit + 1), limit);
+        }
+        Limit fetch = Limit.of(limit + 1);
+
+        List<PolicyHistoryEvent> policies;
+        List<ClaimHistoryEvent> claims;
+        if (after == null) {
+            policies = policyRepository.findHistory(carId, from, to, null, null, fetch);
+            claims = claimRepository.findHistory(carId, from, to, null, null, fetch);
+        } else if (after.typeOrder() == 0) {
+            // after a policy: later policies on the same date, and every claim from that date on
+            policies = policyRepository.findHistory(carId, from, to, after.date(), after.id(), fetch);
+            claims = claimRepository.findHistory(carId, from, to, after.date().minusDays(1), Long.MAX_VALUE, fetch);
+        } else {
+            // after a claim: policies strictly after that date, later claims on the same date
+            policies = policyRepository.findHistory(carId, from, to, after.date(), Long.MAX_VALUE, fetch);
+            claims = claimRepository.findHistory(carId, from, to, after.date(), after.id(), fetch);
+        }
+
+        return toPage(merge(policies, claims, limit + 1), limit);
+    }
+
+    /** Cuts a page from up to {@code limit + 1} events; the extra event only signals a next page. */
+    private static HistoryPage toPage(List<HistoryEvent> events, int limit) {
+        if (events.size() <= limit) {
+            return new HistoryPage(events, null);
+        }
+        events = events.subList(0, limit);
+        return new HistoryPage(events, Cursor.of(events.get(limit - 1)).encode());
+    }
+
+    /** Merges two lists that are each already in timeline order, keeping at most {@code max} events. */
+    static List<HistoryEvent> merge(List<? extends HistoryEvent> a, List<? extends HistoryEvent> b, int max) {
+        List<HistoryEvent> merged = new ArrayList<>(Math.min(max, a.size() + b.size()));
+        int i = 0;
+        int j = 0;
+        while (merged.size() < max && (i < a.size() || j < b.size())) {
+            if (j >= b.size() || (i < a.size() && TIMELINE_ORDER.compare(a.get(i), b.get(j)) <= 0)) {
+                merged.add(a.get(i++));
+            } else {
+                merged.add(b.get(j++));
+            }
+        }
+        return merged;
+    }
+
+    /** Position on the timeline, passed to clients as an opaque base64url token. */
+    record Cursor(LocalDate date, int typeOrder, long id) {
+
+        static Cursor of(HistoryEvent event) {
+            return new Cursor(event.eventDate(), event.typeOrder(), event.eventId());
+        }
+
+        String encode() {
+            String raw = date + ":" + typeOrder + ":" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String token) {
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(":");
+                int typeOrder = Integer.parseInt(parts[1]);
+                if (parts.length != 3 || (typeOrder != 0 && typeOrder != 1)) {
+                    throw new IllegalArgumentException();
+                }
+                return new Cursor(LocalDate.parse(parts[0]), typeOrder, Long.parseLong(parts[2]));
+            } catch (RuntimeException ex) {
+                throw new IllegalArgumentException("Invalid history cursor.");
+            }
+        }
+    }
+}
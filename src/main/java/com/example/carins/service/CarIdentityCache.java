@@ -0,0 +1,104 @@
+package com.example.carins.service;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.example.carins.repo.CarRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Answers "does car X exist" without loading cars. Unknown ids are rejected by a Bloom filter
+ * primed with every car id on startup, so 404s never reach the database; ids that pass the filter
+ * are confirmed once with {@code existsById} and remembered in a bounded cache.
+ * <p>
+ * Only positive answers are cached: a cached "missing" could outlive a concurrent insert,
+ * while the filter already covers negatives. {@link CarChangeListener} keeps both structures
+ * in step with car inserts and deletes.
+ */
+@Component
+public class CarIdentityCache {
+
+    private static final Logger log = LoggerFactory.getLogger(CarIdentityCache.class);
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    private final CarRepository carRepository;
+    private final Cache<Long, Boolean> knownCars;
+    private volatile LongBloomFilter filter;
+    private volatile LongBloomFilter building;
+
+    public CarIdentityCache(CarRepository carRepository,
+            @Value("${carins.car-cache.max-size:100000}") long maxSize,
+            @Value("${carins.car-cache.ttl:PT10M}") Duration ttl) {
+        this.carRepository = carRepository;
+        this.knownCars = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    public boolean exists(Long carId) {
+        if (carId == null) {
+            return false;
+        }
+        LongBloomFilter f = filter;
+        if (f != null && !f.mightContain(carId)) {
+            return false;
+        }
+        if (knownCars.getIfPresent(carId) != null) {
+            return true;
+        }
+        boolean exists = carRepository.existsById(carId);
+        if (exists) {
+            knownCars.put(carId, Boolean.TRUE);
+        }
+        return exists;
+    }
+
+    /**
+     * Builds the negative-lookup filter from all car ids. Until this has run every id is
+     * treated as possibly existing. The filter is sized for twice the current fleet; beyond
+     * that its false-positive rate grows, which costs extra queries but never wrong answers.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void prime() {
+        long started = System.nanoTime();
+        LongBloomFilter primed = new LongBloomFilter(Math.max(1024, carRepository.count() * 2), FALSE_POSITIVE_RATE);
+        building = primed;
+        List<Long> ids = carRepository.findAllIds();
+        ids.forEach(primed::put);
+        filter = primed;
+        building = null;
+        // ids are generated in increasing order; pick up cars committed while the snapshot was read
+        long maxId = ids.stream().mapToLong(Long::longValue).max().orElse(0);
+        carRepository.findIdsGreaterThan(maxId).forEach(primed::put);
+        log.info("Car identity filter primed with {} ids in {} ms", ids.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    void onCarPersisted(Long carId) {
+        if (carId == null) {
+            return;
+        }
+        LongBloomFilter f = filter;
+        if (f != null) {
+            f.put(carId);
+        }
+        LongBloomFilter b = building;
+        if (b != null) {
+            b.put(carId);
+        }
+    }
+
+    void onCarRemoved(Long carId) {
+        if (carId != null) {
+            knownCars.invalidate(carId);
+        }
+    }
+}
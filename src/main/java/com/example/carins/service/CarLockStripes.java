@@ -0,0 +1,78 @@
+package com.example.carins.service;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * A fixed set of locks that policy writers take per car id before checking for overlaps, so the
+ * check and the insert of one car cannot interleave with another write to the same car. Cars are
+ * hashed onto {@code carins.policy-locks.stripes} locks: writes to different cars only contend when
+ * they share a stripe, and memory does not grow with the fleet. Only serialises writers within
+ * this JVM.
+ */
+@Component
+public class CarLockStripes {
+
+    private final ReentrantLock[] stripes;
+
+    public CarLockStripes(@Value("${carins.policy-locks.stripes:64}") int stripes) {
+        if (stripes < 1) {
+            throw new IllegalArgumentException("carins.policy-locks.stripes must be at least 1");
+        }
+        this.stripes = new ReentrantLock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public <T> T withLock(Long carId, Supplier<T> action) {
+        ReentrantLock lock = stripes[stripeOf(carId)];
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Runs {@code action} holding the stripes of all given cars. Stripes are always taken in index
+     * order, so writers locking overlapping sets of cars cannot deadlock.
+     */
+    public <T> T withLocks(Collection<Long> carIds, Supplier<T> action) {
+        int[] indexes = carIds.stream()
+                .filter(Objects::nonNull)
+                .mapToInt(this::stripeOf)
+                .distinct()
+                .sorted()
+                .toArray();
+        int locked = 0;
+        try {
+            for (int index : indexes) {
+                stripes[index].lock();
+                locked++;
+            }
+            return action.get();
+        } finally {
+            for (int i = locked - 1; i >= 0; i--) {
+                stripes[indexes[i]].unlock();
+            }
+        }
+    }
+
+    /** Whether another thread is waiting for the stripe of this car. */
+    boolean hasWaiters(Long carId) {
+        return stripes[stripeOf(carId)].hasQueuedThreads();
+    }
+
+    int stripeOf(Long carId) {
+        // spread sequential ids across stripes
+        long h = carId * 0x9E3779B97F4A7C15L;
+        return (int) Math.floorMod(h ^ (h >>> 32), (long) stripes.length);
+    }
+}
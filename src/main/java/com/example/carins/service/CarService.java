@@ -1,36 +1,135 @@
 package com.example.carins.service;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
 import com.example.carins.model.Car;
 import com.example.carins.repo.CarRepository;
 import com.example.carins.repo.InsurancePolicyRepository;
+import com.example.carins.repo.PolicyPeriod;
+import com.example.carins.web.dto.CarDto;
+import com.example.carins.web.dto.CarFilter;
+import com.example.carins.web.dto.CarPage;
 
 @Service
 public class CarService {
 
+    /** Maximum number of ids bound into a single {@code IN (...)} clause. */
+    static final int IN_CLAUSE_CHUNK_SIZE = 1000;
+
     private final CarRepository carRepository;
     private final InsurancePolicyRepository policyRepository;
+    private final PolicyIntervalIndex policyIndex;
+    private final CarIdentityCache carIdentity;
 
-    public CarService(CarRepository carRepository, InsurancePolicyRepository policyRepository) {
+    public CarService(CarRepository carRepository, InsurancePolicyRepository policyRepository,
+            PolicyIntervalIndex policyIndex, CarIdentityCache carIdentity) {
         this.carRepository = carRepository;
         this.policyRepository = policyRepository;
+        this.policyIndex = policyIndex;
+        this.carIdentity = carIdentity;
     }
 
     public List<Car> listCars() {
         return carRepository.findAll();
     }
 
+    /**
+     * Returns up to {@code pageSize} cars with an id greater than {@code afterId} (or from the start
+     * when {@code null}), ordered by id. One extra row is fetched to know whether another page exists.
+     */
+    public CarPage findCars(CarFilter filter, Long afterId, int pageSize) {
+        List<CarDto> rows = carRepository.findPageAfter(afterId != null ? afterId : Long.MIN_VALUE,
+                filter.make(), filter.model(), filter.year(), filter.ownerId(), Limit.of(pageSize + 1));
+        if (rows.size() <= pageSize) {
+            return new CarPage(rows, null);
+        }
+        List<CarDto> items = rows.subList(0, pageSize);
+        return new CarPage(items, items.get(pageSize - 1).id());
+    }
+
+    /** Cheap existence check by id; unknown ids are usually rejected without a query. */
+    public boolean carExists(Long carId) {
+        return carIdentity.exists(carId);
+    }
+
+    /**
+     * Loads an existing car together with its owner, so it can be serialised outside the
+     * persistence context. Unknown ids are usually rejected without a query.
+     */
+    public Optional<Car> findCar(Long carId) {
+        return carExists(carId) ? carRepository.findWithOwnerById(carId) : Optional.empty();
+    }
+
     public boolean isInsuranceValid(Long carId, LocalDate date) {
         if (carId == null || date == null) {
             return false;
         }
-        if (!carRepository.existsById(carId)) {
+        if (!carExists(carId)) {
             throw new IllegalArgumentException("Car not found with id: " + carId);
         }
+        if (policyIndex.isReady()) {
+            return policyIndex.isCovered(carId, date);
+        }
         return policyRepository.existsActiveOnDate(carId, date);
     }
+
+    /** Returns the subset of the given ids that belong to existing cars, using chunked IN-list queries. */
+    public Set<Long> findExistingCarIds(Collection<Long> carIds) {
+        Set<Long> existing = new HashSet<>();
+        inChunks(carIds, chunk -> existing.addAll(carRepository.findExistingIds(chunk)));
+        return existing;
+    }
+
+    /**
+     * Loads the policy coverage of many cars at once. Cars without policies are absent from the result.
+     * Uses the in-memory index when it is ready, otherwise chunked IN-list queries.
+     */
+    public Map<Long, PolicyIntervals> policyIntervalsFor(Collection<Long> carIds) {
+        Map<Long, PolicyIntervals> result = new HashMap<>();
+        if (policyIndex.isReady()) {
+            for (Long carId : carIds) {
+                PolicyIntervals intervals = policyIndex.intervalsFor(carId);
+                if (!intervals.isEmpty()) {
+                    result.put(carId, intervals);
+                }
+            }
+            return result;
+        }
+        return storedPolicyIntervalsFor(carIds);
+    }
+
+    /**
+     * Like {@link #policyIntervalsFor} but always read from the database, for writers that must see
+     * every committed policy (the index is refreshed only after a write's transaction ends).
+     */
+    public Map<Long, PolicyIntervals> storedPolicyIntervalsFor(Collection<Long> carIds) {
+        Map<Long, PolicyIntervals> result = new HashMap<>();
+        Map<Long, List<PolicyPeriod>> periodsByCar = new HashMap<>();
+        inChunks(carIds, chunk -> {
+            for (PolicyPeriod p : policyRepository.findPeriodsByCarIdIn(chunk)) {
+                periodsByCar.computeIfAbsent(p.carId(), id -> new ArrayList<>()).add(p);
+            }
+        });
+        periodsByCar.forEach((carId, periods) -> result.put(carId, PolicyIntervals.of(periods)));
+        return result;
+    }
+
+    private static void inChunks(Collection<Long> ids, Consumer<List<Long>> action) {
+        List<Long> distinct = new ArrayList<>(new HashSet<>(ids));
+        for (int from = 0; from < distinct.size(); from += IN_CLAUSE_CHUNK_SIZE) {
+            action.accept(distinct.subList(from, Math.min(from + IN_CLAUSE_CHUNK_SIZE, distinct.size())));
+        }
+    }
 }
@@ -0,0 +1,86 @@
+package com.example.carins.service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.example.carins.web.dto.ClaimHistoryEvent;
+import com.example.carins.web.dto.HistoryEvent;
+import com.example.carins.web.dto.PolicyHistoryEvent;
+
+/**
+ * Immutable history of one car: all its events in timeline order, so a page is a binary search
+ * for its first event followed by a sequential copy.
+ */
+final class CarTimeline {
+
+    static final CarTimeline EMPTY = new CarTimeline(new HistoryEvent[0]);
+
+    private final HistoryEvent[] events;
+
+    private CarTimeline(HistoryEvent[] events) {
+        this.events = events;
+    }
+
+    /** Builds a timeline from a car's policies and claims, each already in timeline order. */
+    static CarTimeline of(List<PolicyHistoryEvent> policies, List<ClaimHistoryEvent> claims) {
+        if (policies.isEmpty() && claims.isEmpty()) {
+            return EMPTY;
+        }
+        List<HistoryEvent> merged = CarHistoryService.merge(policies, claims, Integer.MAX_VALUE);
+        return new CarTimeline(merged.toArray(HistoryEvent[]::new));
+    }
+
+    boolean isEmpty() {
+        return events.length == 0;
+    }
+
+    int size() {
+        return events.length;
+    }
+
+    /**
+     * Up to {@code max} events dated within [from, to] (either bound optional), after the cursor
+     * position when one is given.
+     */
+    List<HistoryEvent> events(LocalDate from, LocalDate to, CarHistoryService.Cursor after, int max) {
+        int start = 0;
+        if (from != null) {
+            start = indexAfter(from.minusDays(1), Integer.MAX_VALUE, Long.MAX_VALUE);
+        }
+        if (after != null) {
+            start = Math.max(start, indexAfter(after.date(), after.typeOrder(), after.id()));
+        }
+        List<HistoryEvent> page = new ArrayList<>(Math.min(max, events.length - start));
+        for (int i = start; i < events.length && page.size() < max; i++) {
+            if (to != null && events[i].eventDate().isAfter(to)) {
+                break;
+            }
+            page.add(events[i]);
+        }
+        return page;
+    }
+
+    /** Index of the first event positioned after (date, typeOrder, id). */
+    private int indexAfter(LocalDate date, int typeOrder, long id) {
+        int lo = 0;
+        int hi = events.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            HistoryEvent e = events[mid];
+            int cmp = e.eventDate().compareTo(date);
+            if (cmp == 0) {
+                cmp = Integer.compare(e.typeOrder(), typeOrder);
+            }
+            if (cmp == 0) {
+                cmp = Long.compare(e.eventId(), id);
+            }
+            if (cmp <= 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.carins.service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.example.carins.repo.InsuranceClaimRepository;
+import com.example.carins.web.dto.ClaimAnalyticsReport;
+import com.example.carins.web.dto.ClaimGroupStats;
+
+/**
+ * Claim totals, counts and percentiles per car, provider or month over any date range, computed
+ * on a {@link ClaimColumns} snapshot instead of {@code InsuranceClaim} entities. The snapshot is
+ * built on first use and rebuilt by the next query after a claim or policy write commits, at most
+ * once per {@code carins.analytics.max-staleness}; results may lag writes by that much.
+ */
+@Component
+public class ClaimAnalytics {
+
+    private static final Logger log = LoggerFactory.getLogger(ClaimAnalytics.class);
+
+    private final InsuranceClaimRepository claimRepository;
+    private final int splitRows;
+    private final long maxStalenessNanos;
+    // a lock rather than synchronized: the rebuild blocks on JDBC and may run on a virtual thread
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private volatile ClaimColumns columns;
+    private volatile long builtAt;
+    private volatile boolean stale = true;
+
+    public ClaimAnalytics(InsuranceClaimRepository claimRepository,
+            @Value("${carins.analytics.split-rows:65536}") int splitRows,
+            @Value("${carins.analytics.max-staleness:PT1S}") Duration maxStaleness) {
+        this.claimRepository = claimRepository;
+        this.splitRows = splitRows;
+        this.maxStalenessNanos = maxStaleness.toNanos();
+    }
+
+    public ClaimAnalyticsReport aggregate(ClaimGrouping grouping, LocalDate from, LocalDate to) {
+        ClaimColumns snapshot = snapshot();
+        ClaimColumns.Aggregation result = snapshot.aggregate(grouping,
+                from != null ? from.toEpochDay() : Long.MIN_VALUE,
+                to != null ? to.toEpochDay() : Long.MAX_VALUE);
+
+        List<ClaimGroupStats> groups = new ArrayList<>();
+        long claims = 0;
+        long total = 0;
+        for (int g = 0; g < result.groups(); g++) {
+            if (result.count[g] == 0) {
+                continue;
+            }
+            claims += result.count[g];
+            total += result.total[g];
+            groups.add(new ClaimGroupStats(snapshot.key(grouping, g), result.count[g],
+                    ClaimColumns.fromCents(result.total[g]), ClaimColumns.fromCents(result.p50[g]),
+                    ClaimColumns.fromCents(result.p90[g]), ClaimColumns.fromCents(result.p99[g]),
+                    ClaimColumns.fromCents(result.max[g])));
+        }
+        return new ClaimAnalyticsReport(grouping.name().toLowerCase(Locale.ROOT), from, to, claims,
+                ClaimColumns.fromCents(total), groups);
+    }
+
+    @EventListener
+    public void onCarDataChanged(CarDataChangedEvent event) {
+        stale = true;
+    }
+
+    private ClaimColumns snapshot() {
+        ClaimColumns current = columns;
+        if (isFresh(current)) {
+            return current;
+        }
+        rebuildLock.lock();
+        try {
+            if (isFresh(columns)) {
+                return columns;
+            }
+            // cleared before reading, so a write committing during the rebuild marks it stale again
+            stale = false;
+            long started = System.nanoTime();
+            ClaimColumns rebuilt = ClaimColumns.of(claimRepository.findAllFacts(), splitRows);
+            builtAt = started;
+            columns = rebuilt;
+            log.debug("Claim analytics snapshot rebuilt with {} claims in {} ms",
+                    rebuilt.size(), (System.nanoTime() - started) / 1_000_000);
+            return rebuilt;
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private boolean isFresh(ClaimColumns snapshot) {
+        return snapshot != null && (!stale || System.nanoTime() - builtAt < maxStalenessNanos);
+    }
+}
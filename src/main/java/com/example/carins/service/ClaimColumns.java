@@ -0,0 +1,263 @@
+package com.example.carins.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.RecursiveAction;
+
+import com.example.carins.repo.ClaimFactRow;
+
+/**
+ * Immutable columnar snapshot of all claims: dates as epoch days and amounts as long cents in
+ * primitive arrays, with cars and providers dictionary-encoded. There is one copy of the date and
+ * amount columns per {@link ClaimGrouping}, ordered by (group, day), so each group is a contiguous
+ * slice whose date window is found by binary search. Aggregations split the groups into
+ * fork/join tasks of roughly {@code splitRows} rows each.
+ */
+final class ClaimColumns {
+
+    private final long[] carIds;
+    private final String[] providers;
+    private final int firstMonth;
+    private final Map<ClaimGrouping, Layout> layouts;
+    private final int splitRows;
+
+    private ClaimColumns(long[] carIds, String[] providers, int firstMonth, Map<ClaimGrouping, Layout> layouts,
+            int splitRows) {
+        this.carIds = carIds;
+        this.providers = providers;
+        this.firstMonth = firstMonth;
+        this.layouts = layouts;
+        this.splitRows = splitRows;
+    }
+
+    /**
+     * Builds the columns from claim facts ordered by (claimDate, claimId). A claim listed more than
+     * once (covered by overlapping legacy policies) is kept with its first provider only.
+     */
+    static ClaimColumns of(List<ClaimFactRow> facts, int splitRows) {
+        List<ClaimFactRow> claims = new ArrayList<>(facts.size());
+        Long previous = null;
+        for (ClaimFactRow fact : facts) {
+            if (!fact.claimId().equals(previous)) {
+                claims.add(fact);
+            }
+            previous = fact.claimId();
+        }
+
+        long[] carIds = claims.stream().mapToLong(ClaimFactRow::carId).distinct().sorted().toArray();
+        // index 0 stands for "no active policy on the claim date"
+        List<String> providerNames = new ArrayList<>();
+        providerNames.add(null);
+        claims.stream().map(ClaimFactRow::provider).filter(Objects::nonNull).distinct().sorted()
+                .forEach(providerNames::add);
+        Map<String, Integer> providerIndex = new HashMap<>();
+        for (int i = 1; i < providerNames.size(); i++) {
+            providerIndex.put(providerNames.get(i), i);
+        }
+
+        int n = claims.size();
+        int[] day = new int[n];
+        long[] cents = new long[n];
+        int[] car = new int[n];
+        int[] provider = new int[n];
+        int[] month = new int[n];
+        for (int i = 0; i < n; i++) {
+            ClaimFactRow claim = claims.get(i);
+            day[i] = (int) claim.claimDate().toEpochDay();
+            cents[i] = toCents(claim.amount());
+            car[i] = Arrays.binarySearch(carIds, claim.carId());
+            provider[i] = claim.provider() == null ? 0 : providerIndex.get(claim.provider());
+            month[i] = monthIndex(YearMonth.from(claim.claimDate()));
+        }
+        // rows are in date order, so the first and last rows bound the month range
+        int firstMonth = n == 0 ? 0 : month[0];
+        int months = n == 0 ? 0 : month[n - 1] - firstMonth + 1;
+        for (int i = 0; i < n; i++) {
+            month[i] -= firstMonth;
+        }
+
+        Map<ClaimGrouping, Layout> layouts = new EnumMap<>(ClaimGrouping.class);
+        layouts.put(ClaimGrouping.CAR, Layout.of(car, carIds.length, day, cents));
+        layouts.put(ClaimGrouping.PROVIDER, Layout.of(provider, providerNames.size(), day, cents));
+        layouts.put(ClaimGrouping.MONTH, Layout.of(month, months, day, cents));
+        return new ClaimColumns(carIds, providerNames.toArray(String[]::new), firstMonth, layouts, splitRows);
+    }
+
+    int size() {
+        return layouts.get(ClaimGrouping.CAR).day.length;
+    }
+
+    /** Display key of a group: the car id, the provider name ({@code null} for uninsured days) or yyyy-MM. */
+    String key(ClaimGrouping grouping, int group) {
+        return switch (grouping) {
+            case CAR -> String.valueOf(carIds[group]);
+            case PROVIDER -> providers[group];
+            case MONTH -> YearMonth.of(0, 1).plusMonths(firstMonth + group).toString();
+        };
+    }
+
+    /** Count, total, percentiles and maximum of the claims of every group dated within [fromDay, toDay]. */
+    Aggregation aggregate(ClaimGrouping grouping, long fromDay, long toDay) {
+        Layout layout = layouts.get(grouping);
+        Aggregation result = new Aggregation(layout.groups());
+        // days are ints: clamping open bounds keeps fromDay - 1 from overflowing
+        new Scan(layout, Math.max(fromDay, Integer.MIN_VALUE), Math.min(toDay, Integer.MAX_VALUE),
+                0, layout.groups(), result, splitRows).invoke();
+        return result;
+    }
+
+    static long toCents(BigDecimal amount) {
+        return amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    private static int monthIndex(YearMonth month) {
+        return month.getYear() * 12 + month.getMonthValue() - 1;
+    }
+
+    /** Per-group results, indexed by group; groups without claims in the range have {@code count == 0}. */
+    static final class Aggregation {
+
+        final long[] count;
+        final long[] total;
+        final long[] p50;
+        final long[] p90;
+        final long[] p99;
+        final long[] max;
+
+        Aggregation(int groups) {
+            count = new long[groups];
+            total = new long[groups];
+            p50 = new long[groups];
+            p90 = new long[groups];
+            p99 = new long[groups];
+            max = new long[groups];
+        }
+
+        int groups() {
+            return count.length;
+        }
+    }
+
+    /** Date and amount columns ordered by (group, day); group g owns rows [offsets[g], offsets[g + 1]). */
+    private record Layout(int[] offsets, int[] day, long[] cents) {
+
+        /** Stable counting sort by group, so rows keep their date order inside each group. */
+        static Layout of(int[] group, int groups, int[] day, long[] cents) {
+            int[] offsets = new int[groups + 1];
+            for (int g : group) {
+                offsets[g + 1]++;
+            }
+            for (int g = 0; g < groups; g++) {
+                offsets[g + 1] += offsets[g];
+            }
+            int[] next = Arrays.copyOf(offsets, groups);
+            int[] sortedDay = new int[day.length];
+            long[] sortedCents = new long[cents.length];
+            for (int i = 0; i < day.length; i++) {
+                int at = next[group[i]]++;
+                sortedDay[at] = day[i];
+                sortedCents[at] = cents[i];
+            }
+            return new Layout(offsets, sortedDay, sortedCents);
+        }
+
+        int groups() {
+            return offsets.length - 1;
+        }
+    }
+
+    /** Aggregates groups [from, to); each group writes only its own result slots, so tasks share nothing. */
+    private static final class Scan extends RecursiveAction {
+
+        private final Layout layout;
+        private final long fromDay;
+        private final long toDay;
+        private final int from;
+        private final int to;
+        private final Aggregation result;
+        private final int splitRows;
+
+        Scan(Layout layout, long fromDay, long toDay, int from, int to, Aggregation result, int splitRows) {
+            this.layout = layout;
+            this.fromDay = fromDay;
+            this.toDay = toDay;
+            this.from = from;
+            this.to = to;
+            this.result = result;
+            this.splitRows = splitRows;
+        }
+
+        @Override
+        protected void compute() {
+            int[] offsets = layout.offsets();
+            if (to - from > 1 && offsets[to] - offsets[from] > splitRows) {
+                // split where half of the rows lie, keeping at least one group on each side
+                int mid = Arrays.binarySearch(offsets, from, to, (offsets[from] + offsets[to]) >>> 1);
+                mid = Math.max(from + 1, Math.min(to - 1, mid < 0 ? -mid - 1 : mid));
+                invokeAll(new Scan(layout, fromDay, toDay, from, mid, result, splitRows),
+                        new Scan(layout, fromDay, toDay, mid, to, result, splitRows));
+                return;
+            }
+            for (int g = from; g < to; g++) {
+                summarize(g);
+            }
+        }
+
+        private void summarize(int g) {
+            int[] day = layout.day();
+            int lo = firstAfter(day, layout.offsets()[g], layout.offsets()[g + 1], fromDay - 1);
+            int hi = firstAfter(day, lo, layout.offsets()[g + 1], toDay);
+            int n = hi - lo;
+            if (n == 0) {
+                return;
+            }
+            long[] amounts = Arrays.copyOfRange(layout.cents(), lo, hi);
+            long total = 0;
+            for (long cents : amounts) {
+                total += cents;
+            }
+            if (n > splitRows) {
+                Arrays.parallelSort(amounts);
+            } else {
+                Arrays.sort(amounts);
+            }
+            result.count[g] = n;
+            result.total[g] = total;
+            result.p50[g] = percentile(amounts, 50);
+            result.p90[g] = percentile(amounts, 90);
+            result.p99[g] = percentile(amounts, 99);
+            result.max[g] = amounts[n - 1];
+        }
+
+        /** First index in [lo, hi) whose day is after {@code bound}; days are ascending within a group. */
+        private static int firstAfter(int[] day, int lo, int hi, long bound) {
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (day[mid] <= bound) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        /** Nearest-rank percentile of sorted, non-empty values. */
+        private static long percentile(long[] sorted, int percent) {
+            int rank = (int) ((percent * (long) sorted.length + 99) / 100);
+            return sorted[Math.max(rank, 1) - 1];
+        }
+    }
+}
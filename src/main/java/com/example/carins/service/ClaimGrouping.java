@@ -0,0 +1,8 @@
+package com.example.carins.service;
+
+/** Dimension claim analytics are grouped by: the claim's car, the provider covering it, or its calendar month. */
+public enum ClaimGrouping {
+    CAR,
+    PROVIDER,
+    MONTH
+}
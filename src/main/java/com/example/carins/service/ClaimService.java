@@ -0,0 +1,62 @@
+package com.example.carins.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.carins.model.Car;
+import com.example.carins.model.InsuranceClaim;
+import com.example.carins.web.dto.InsuranceClaimDto;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Bulk claim ingestion. Claim ids come from a pooled sequence, so persisting does not hit the
+ * database, and inserts go out as JDBC batches of {@code carins.claims.batch-size} rows; the
+ * persistence context is flushed and cleared after each batch to keep memory flat.
+ */
+@Service
+public class ClaimService {
+
+    private final EntityManager entityManager;
+    private final int batchSize;
+
+    public ClaimService(EntityManager entityManager, @Value("${carins.claims.batch-size:500}") int batchSize) {
+        this.entityManager = entityManager;
+        this.batchSize = batchSize;
+    }
+
+    /** Inserts the given (already validated) claims for one car; returns their ids in input order. */
+    @Transactional
+    public List<Long> registerClaims(Long carId, List<InsuranceClaimDto> dtos) {
+        Session session = entityManager.unwrap(Session.class);
+        Integer previousBatchSize = session.getJdbcBatchSize();
+        session.setJdbcBatchSize(batchSize);
+        try {
+            List<Long> ids = new ArrayList<>(dtos.size());
+            Car car = entityManager.getReference(Car.class, carId);
+            for (InsuranceClaimDto dto : dtos) {
+                InsuranceClaim claim = new InsuranceClaim();
+                claim.setCar(car);
+                claim.setClaimDate(dto.getClaimDate());
+                claim.setDescription(dto.getDescription());
+                claim.setAmount(dto.getAmount());
+                entityManager.persist(claim);
+                ids.add(claim.getId());
+                if (ids.size() % batchSize == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                    car = entityManager.getReference(Car.class, carId);
+                }
+            }
+            entityManager.flush();
+            return ids;
+        } finally {
+            session.setJdbcBatchSize(previousBatchSize);
+        }
+    }
+}
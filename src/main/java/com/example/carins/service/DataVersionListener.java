@@ -0,0 +1,55 @@
+package com.example.carins.service;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import com.example.carins.model.Car;
+import com.example.carins.model.EntityWriteObserver;
+import com.example.carins.model.InsuranceClaim;
+import com.example.carins.model.InsurancePolicy;
+import com.example.carins.model.Owner;
+
+/**
+ * Bumps the {@link DataVersions} counters whenever any code path writes one of the entities served
+ * by the car list and car history endpoints.
+ */
+@Component
+public class DataVersionListener implements EntityWriteObserver {
+
+    private final ObjectProvider<DataVersions> versions;
+
+    public DataVersionListener(ObjectProvider<DataVersions> versions) {
+        this.versions = versions;
+    }
+
+    @Override
+    public void afterPersist(Object entity) {
+        onWrite(entity);
+    }
+
+    @Override
+    public void afterUpdate(Object entity) {
+        onWrite(entity);
+    }
+
+    @Override
+    public void afterRemove(Object entity) {
+        onWrite(entity);
+    }
+
+    private void onWrite(Object entity) {
+        DataVersions v = versions.getIfAvailable();
+        if (v == null) {
+            return;
+        }
+        if (entity instanceof Car car) {
+            v.carChanged(car.getId(), true);
+        } else if (entity instanceof Owner) {
+            v.fleetChanged();
+        } else if (entity instanceof InsurancePolicy policy && policy.getCar() != null) {
+            v.carChanged(policy.getCar().getId(), false);
+        } else if (entity instanceof InsuranceClaim claim && claim.getCar() != null) {
+            v.carChanged(claim.getCar().getId(), false);
+        }
+    }
+}
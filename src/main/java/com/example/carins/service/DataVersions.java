@@ -0,0 +1,115 @@
+package com.example.carins.service;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * In-memory version counters behind the ETags of {@code GET /api/cars} (the fleet: cars and owners)
+ * and {@code GET /api/cars/{carId}/history} (one car: the car, its policies and claims). Writes bump
+ * the counters only after their transaction commits, and readers take the ETag before querying, so
+ * a response is never labelled with a version newer than its data.
+ * <p>
+ * Per-car counters are striped over {@code carins.etag.car-slots} slots: cars sharing a slot
+ * invalidate each other's ETags, which costs a spurious 200 but never a stale 304. Each ETag also
+ * carries the boot time, so tags handed out before a restart never match.
+ * <p>
+ * Before the counters move, a {@link CarDataChangedEvent} tells other read models which cars changed,
+ * so they drop what they hold for those cars before a new tag can be handed out with it.
+ */
+@Component
+public class DataVersions {
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong fleet = new AtomicLong();
+    private final AtomicLongArray cars;
+    private final ApplicationEventPublisher events;
+
+    public DataVersions(@Value("${carins.etag.car-slots:4096}") int carSlots, ApplicationEventPublisher events) {
+        this.cars = new AtomicLongArray(carSlots);
+        this.events = events;
+    }
+
+    /** Strong ETag of the car list. */
+    public String fleetETag() {
+        return "\"fleet-" + epoch + "-" + fleet.get() + "\"";
+    }
+
+    /** Strong ETag of one car's history. */
+    public String carETag(Long carId) {
+        return "\"car-" + carId + "-" + epoch + "-" + cars.get(slot(carId)) + "\"";
+    }
+
+    /** A car, or something shown in its history, changed; {@code fleet} also invalidates the car list. */
+    public void carChanged(Long carId, boolean fleet) {
+        if (carId == null && !fleet) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publishThenBump(carId != null ? Set.of(carId) : Set.of(), fleet);
+            return;
+        }
+        PendingBumps pending = (PendingBumps) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingBumps();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        if (carId != null) {
+            pending.carIds.add(carId);
+        }
+        pending.fleet |= fleet;
+    }
+
+    public void fleetChanged() {
+        carChanged(null, true);
+    }
+
+    @EventListener
+    public void onPolicyChanged(PolicyChangedEvent event) {
+        // the entity listener only sees the car the policy moved to
+        if (event.carChanged()) {
+            carChanged(event.previousCarId(), false);
+        }
+    }
+
+    private void publishThenBump(Set<Long> carIds, boolean fleetChanged) {
+        try {
+            if (!carIds.isEmpty()) {
+                events.publishEvent(new CarDataChangedEvent(carIds));
+            }
+        } finally {
+            // even when a listener fails: an unmoved tag would keep answering 304 for the old data
+            carIds.forEach(carId -> cars.incrementAndGet(slot(carId)));
+            if (fleetChanged) {
+                fleet.incrementAndGet();
+            }
+        }
+    }
+
+    private int slot(Long carId) {
+        return Math.floorMod(Long.hashCode(carId), cars.length());
+    }
+
+    /** Bumps collected during one transaction, applied once it has committed. */
+    private final class PendingBumps implements TransactionSynchronization {
+        private final Set<Long> carIds = new HashSet<>();
+        private boolean fleet;
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(DataVersions.this);
+            if (status == STATUS_COMMITTED) {
+                publishThenBump(Set.copyOf(carIds), fleet);
+            }
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.example.carins.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.carins.model.InsurancePolicy;
+import com.example.carins.repo.ExpiredPolicy;
+import com.example.carins.repo.InsurancePolicyRepository;
+import com.example.carins.repo.PolicyPeriod;
+
+/**
+ * Hashed timing wheel that logs each policy expiry at midnight after its end date plus a
+ * configurable delay, instead of polling the policies table every hour.
+ * <p>
+ * Only expiries within the next {@code horizon-days} are held in memory; the window is extended
+ * with one indexed query per day. With the default sizing (4096 one-minute slots, ~2.8 days) the
+ * whole horizon fits in a single rotation, so every entry in the visited slot is due and a tick
+ * costs only as much as the expiries it fires. Policy writes reschedule their entry through
+ * {@link PolicyChangedEvent}. Enabled with {@code carins.expiry.scheduler=wheel}.
+ */
+@Component
+@Lazy(false)
+@ConditionalOnProperty(name = "carins.expiry.scheduler", havingValue = "wheel")
+public class ExpiryTimingWheel {
+
+    private static final Logger log = LoggerFactory.getLogger(ExpiryTimingWheel.class);
+    private static final Comparator<ExpiredPolicy> EXPIRY_ORDER =
+            Comparator.comparing(ExpiredPolicy::endDate).thenComparing(ExpiredPolicy::policyId);
+
+    private record Entry(ExpiredPolicy policy, long deadlineTick) {}
+
+    private final PolicyExpiryLogger expiryLogger;
+    private final InsurancePolicyRepository policyRepo;
+    private final Clock clock;
+    private final long tickMillis;
+    private final Duration delay;
+    private final int horizonDays;
+    private final List<List<Entry>> slots;
+    private final Map<Long, Entry> entriesByPolicy = new HashMap<>();
+    private long lastTick;
+    private LocalDate loadedThrough;
+
+    @Autowired
+    public ExpiryTimingWheel(PolicyExpiryLogger expiryLogger, InsurancePolicyRepository policyRepo,
+            @Value("${carins.expiry.wheel.tick:PT1M}") Duration tick,
+            @Value("${carins.expiry.wheel.slots:4096}") int slotCount,
+            @Value("${carins.expiry.wheel.delay:PT1M}") Duration delay,
+            @Value("${carins.expiry.wheel.horizon-days:1}") int horizonDays) {
+        this(expiryLogger, policyRepo, tick, slotCount, delay, horizonDays, Clock.systemDefaultZone());
+    }
+
+    ExpiryTimingWheel(PolicyExpiryLogger expiryLogger, InsurancePolicyRepository policyRepo, Duration tick,
+            int slotCount, Duration delay, int horizonDays, Clock clock) {
+        this.expiryLogger = expiryLogger;
+        this.policyRepo = policyRepo;
+        this.clock = clock;
+        this.tickMillis = tick.toMillis();
+        this.delay = delay;
+        this.horizonDays = horizonDays;
+        this.slots = new ArrayList<>(slotCount);
+        for (int i = 0; i < slotCount; i++) {
+            slots.add(new ArrayList<>());
+        }
+        Duration span = tick.multipliedBy(slotCount);
+        if (span.compareTo(Duration.ofDays(horizonDays + 1).plus(delay)) < 0) {
+            log.warn("Timing wheel spans {} but holds {} days of expiries; ticks will revisit pending entries",
+                    span, horizonDays + 1);
+        }
+    }
+
+    /** Logs whatever expired while the application was down, then loads the upcoming window. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        expiryLogger.logExpiredPolicies();
+        synchronized (this) {
+            lastTick = currentTick();
+            LocalDate today = LocalDate.now(clock);
+            loadedThrough = today.minusDays(1);
+            extendHorizon(today);
+        }
+    }
+
+    @Scheduled(fixedRateString = "${carins.expiry.wheel.tick:PT1M}")
+    public void tick() {
+        List<ExpiredPolicy> due;
+        synchronized (this) {
+            if (loadedThrough == null) {
+                return;
+            }
+            extendHorizon(LocalDate.now(clock));
+            due = advanceTo(currentTick());
+        }
+        if (!due.isEmpty()) {
+            expiryLogger.logExpired(due);
+        }
+    }
+
+    @EventListener
+    public void onPolicyChanged(PolicyChangedEvent event) {
+        InsurancePolicy policy = event.policy();
+        boolean overdue = false;
+        synchronized (this) {
+            if (loadedThrough == null) {
+                return;
+            }
+            cancel(policy.getId());
+            LocalDate end = policy.getEndDate();
+            // expiries beyond the loaded window are picked up when the horizon moves
+            if (end != null && !end.isAfter(loadedThrough)) {
+                overdue = !schedule(new ExpiredPolicy(policy.getId(), event.carId(), end));
+            }
+        }
+        if (overdue) {
+            // end date moved into the past: let the catch-up scan decide whether to log it
+            expiryLogger.logExpiredPolicies();
+        }
+    }
+
+    @EventListener
+    public void onPoliciesImported(PoliciesImportedEvent event) {
+        boolean overdue = false;
+        synchronized (this) {
+            if (loadedThrough == null) {
+                return;
+            }
+            for (PolicyPeriod p : event.policies()) {
+                if (p.endDate() != null && !p.endDate().isAfter(loadedThrough)) {
+                    overdue |= !schedule(new ExpiredPolicy(p.policyId(), p.carId(), p.endDate()));
+                }
+            }
+        }
+        if (overdue) {
+            expiryLogger.logExpiredPolicies();
+        }
+    }
+
+    synchronized int pendingCount() {
+        return entriesByPolicy.size();
+    }
+
+    private void extendHorizon(LocalDate today) {
+        LocalDate target = today.plusDays(horizonDays);
+        if (!loadedThrough.isBefore(target)) {
+            return;
+        }
+        List<ExpiredPolicy> upcoming = policyRepo.findEndingBetween(loadedThrough.plusDays(1), target);
+        for (ExpiredPolicy p : upcoming) {
+            if (!entriesByPolicy.containsKey(p.policyId())) {
+                schedule(p);
+            }
+        }
+        loadedThrough = target;
+        log.debug("Timing wheel loaded {} expiries through {}", upcoming.size(), target);
+    }
+
+    /** Places a policy in its slot; returns false if its deadline has already passed. */
+    private boolean schedule(ExpiredPolicy policy) {
+        long deadline = policy.endDate().plusDays(1).atStartOfDay(clock.getZone()).toInstant()
+                .plus(delay).toEpochMilli();
+        long deadlineTick = Math.ceilDiv(deadline, tickMillis);
+        if (deadlineTick <= lastTick) {
+            return false;
+        }
+        Entry entry = new Entry(policy, deadlineTick);
+        slots.get(slotOf(deadlineTick)).add(entry);
+        entriesByPolicy.put(policy.policyId(), entry);
+        return true;
+    }
+
+    private void cancel(Long policyId) {
+        Entry entry = entriesByPolicy.remove(policyId);
+        if (entry != null) {
+            slots.get(slotOf(entry.deadlineTick())).remove(entry);
+        }
+    }
+
+    /** Visits every slot between the last processed tick and {@code now}, at most one full turn. */
+    private List<ExpiredPolicy> advanceTo(long now) {
+        List<ExpiredPolicy> due = new ArrayList<>();
+        long from = Math.max(lastTick + 1, now - slots.size() + 1);
+        for (long t = from; t <= now; t++) {
+            Iterator<Entry> it = slots.get(slotOf(t)).iterator();
+            while (it.hasNext()) {
+                Entry entry = it.next();
+                if (entry.deadlineTick() <= now) {
+                    it.remove();
+                    entriesByPolicy.remove(entry.policy().policyId());
+                    due.add(entry.policy());
+                }
+            }
+        }
+        lastTick = Math.max(lastTick, now);
+        due.sort(EXPIRY_ORDER);
+        return due;
+    }
+
+    private long currentTick() {
+        return Math.floorDiv(clock.millis(), tickMillis);
+    }
+
+    private int slotOf(long tick) {
+        return (int) Math.floorMod(tick, (long) slots.size());
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.carins.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.carins.web.dto.FleetExportRow;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Streams every car with its owner and active policy as newline-delimited JSON. Rows are read
+ * through a forward-only scroll and written as they arrive, so memory use does not depend on
+ * fleet size.
+ */
+@Service
+public class FleetExportService {
+
+    // ordered by car, newest policy first: if overlapping policies exist, the first row per car wins
+    private static final String EXPORT_QUERY =
+            "select new com.example.carins.web.dto.FleetExportRow(c.id, c.vin, c.make, c.model, c.yearOfManufacture, " +
+            "o.id, o.name, o.email, p.id, p.provider, p.startDate, p.endDate) " +
+            "from Car c join c.owner o " +
+            "left join InsurancePolicy p on p.car = c and p.startDate <= :date " +
+            "and (p.endDate is null or p.endDate >= :date) " +
+            "order by c.id, p.startDate desc";
+
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final int fetchSize;
+    private final int clearEvery;
+
+    public FleetExportService(EntityManager entityManager, ObjectMapper objectMapper,
+            @Value("${carins.export.fetch-size:500}") int fetchSize,
+            @Value("${carins.export.clear-every:5000}") int clearEvery) {
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.fetchSize = fetchSize;
+        this.clearEvery = clearEvery;
+    }
+
+    /** Writes one JSON object per car to {@code out}; returns the number of cars written. */
+    @Transactional(readOnly = true)
+    public long exportFleet(LocalDate date, OutputStream out) throws IOException {
+        Session session = entityManager.unwrap(Session.class);
+        long written = 0;
+        try (ScrollableResults<FleetExportRow> rows = session.createSelectionQuery(EXPORT_QUERY, FleetExportRow.class)
+                .setParameter("date", date)
+                .setFetchSize(fetchSize)
+                .setReadOnly(true)
+                .setCacheMode(CacheMode.IGNORE)
+                .scroll(ScrollMode.FORWARD_ONLY);
+                JsonGenerator gen = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            gen.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+            gen.setRootValueSeparator(null);
+            Long previousCar = null;
+            while (rows.next()) {
+                FleetExportRow row = rows.get();
+                if (row.carId().equals(previousCar)) {
+                    continue;
+                }
+                previousCar = row.carId();
+                writeRow(gen, row);
+                if (++written % clearEvery == 0) {
+                    gen.flush();
+                    session.clear();
+                }
+            }
+        }
+        return written;
+    }
+
+    private static void writeRow(JsonGenerator gen, FleetExportRow row) throws IOException {
+        gen.writeStartObject();
+        gen.writeNumberField("carId", row.carId());
+        gen.writeStringField("vin", row.vin());
+        gen.writeStringField("make", row.make());
+        gen.writeStringField("model", row.model());
+        gen.writeNumberField("year", row.year());
+        gen.writeObjectFieldStart("owner");
+        gen.writeNumberField("id", row.ownerId());
+        gen.writeStringField("name", row.ownerName());
+        gen.writeStringField("email", row.ownerEmail());
+        gen.writeEndObject();
+        if (row.policyId() != null) {
+            gen.writeObjectFieldStart("policy");
+            gen.writeNumberField("id", row.policyId());
+            gen.writeStringField("provider", row.provider());
+            gen.writeStringField("startDate", row.policyStartDate().toString());
+            gen.writeStringField("endDate", row.policyEndDate() != null ? row.policyEndDate().toString() : null);
+            gen.writeEndObject();
+        } else {
+            gen.writeNullField("policy");
+        }
+        gen.writeEndObject();
+        gen.writeRaw('\n');
+    }
+}
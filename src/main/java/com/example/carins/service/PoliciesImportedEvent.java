@@ -0,0 +1,22 @@
+package com.example.carins.service;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.example.carins.repo.PolicyPeriod;
+
+/**
+ * Published after a chunk of a bulk policy import has been committed, instead of one
+ * {@link PolicyChangedEvent} per row. All policies are new.
+ */
+public record PoliciesImportedEvent(List<PolicyPeriod> policies) {
+
+    public Set<Long> carIds() {
+        Set<Long> carIds = new LinkedHashSet<>();
+        for (PolicyPeriod p : policies) {
+            carIds.add(p.carId());
+        }
+        return carIds;
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.carins.service;
+
+import java.time.LocalDate;
+
+import com.example.carins.model.InsurancePolicy;
+
+/**
+ * Published after an insurance policy has been created or updated.
+ * For updates, {@code previousCarId} and {@code previousEndDate} hold the values before the change;
+ * for a newly created policy both are {@code null}.
+ */
+public record PolicyChangedEvent(InsurancePolicy policy, Long previousCarId, LocalDate previousEndDate) {
+
+    public static PolicyChangedEvent created(InsurancePolicy policy) {
+        return new PolicyChangedEvent(policy, null, null);
+    }
+
+    public Long carId() {
+        return policy.getCar() != null ? policy.getCar().getId() : null;
+    }
+
+    public boolean carChanged() {
+        return previousCarId != null && !previousCarId.equals(carId());
+    }
+}
@@ -1,37 +1,138 @@
 package com.example.carins.service;
 
 import java.time.LocalDate;
-import java.util.HashSet;
-import java.util.Set;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
+import com.example.carins.model.PolicyExpiryLogEntry;
+import com.example.carins.repo.ExpiredPolicy;
 import com.example.carins.repo.InsurancePolicyRepository;
+import com.example.carins.repo.PolicyExpiryLogRepository;
 
+/**
+ * Logs each policy once after it expires (at midnight following its end date). Every run re-reads
+ * the policies that ended within the last {@code carins.expiry.lookback} and skips those already in
+ * the expiry log for their current end date, so restarts neither repeat nor skip log lines, and a
+ * policy whose end date is moved back into the past is still logged. Expiries older than the
+ * look-back window are never logged; log entries for them are pruned after each scan. The default
+ * window of one day logs the policies that ended yesterday, as the original job did, so a fresh
+ * database does not log a backlog of older expiries on its first run; widen it to catch up on
+ * expiries missed while the application was down. Scheduling is
+ * done either by {@link PolicyExpiryPoller} or by {@link ExpiryTimingWheel}, see
+ * {@code carins.expiry.scheduler}. Each run records its duration in {@code carins.expiry.run} and
+ * the policies it read in {@code carins.expiry.rows.scanned}, tagged with the trigger ({@code scan}
+ * or {@code wheel}).
+ */
 @Service
 public class PolicyExpiryLogger {
 
+    static final int BATCH_SIZE = 500;
+
     private static final Logger log = LoggerFactory.getLogger(PolicyExpiryLogger.class);
     private final InsurancePolicyRepository policyRepo;
-    private final Set<Long> loggedPolicies = new HashSet<>();
+    private final PolicyExpiryLogRepository expiryLog;
+    private final Period lookback;
+    // a lock rather than synchronized: runs block on JDBC and may run on virtual threads
+    private final ReentrantLock runLock = new ReentrantLock();
+    private final Timer scanTimer;
+    private final Timer wheelTimer;
+    private final DistributionSummary scanRows;
+    private final DistributionSummary wheelRows;
 
-    public PolicyExpiryLogger(InsurancePolicyRepository policyRepo) {
+    public PolicyExpiryLogger(InsurancePolicyRepository policyRepo, PolicyExpiryLogRepository expiryLog,
+                              MeterRegistry meterRegistry,
+                              @Value("${carins.expiry.lookback:P1D}") Period lookback) {
         this.policyRepo = policyRepo;
+        this.expiryLog = expiryLog;
+        this.lookback = lookback;
+        this.scanTimer = runTimer(meterRegistry, "scan");
+        this.wheelTimer = runTimer(meterRegistry, "wheel");
+        this.scanRows = rowsScanned(meterRegistry, "scan");
+        this.wheelRows = rowsScanned(meterRegistry, "wheel");
     }
 
-    @Scheduled(fixedRate = 60 * 60 * 1000)
+    /**
+     * Logs every policy that expired within the look-back window and has not been logged yet. Runs
+     * hourly from {@link PolicyExpiryPoller}, or once on startup and for late changes in
+     * timing-wheel mode.
+     */
     public void logExpiredPolicies() {
-        LocalDate now = LocalDate.now();
-        policyRepo.findAll().forEach(policy -> {
-            if (!loggedPolicies.contains(policy.getId())
-                    && policy.getEndDate() != null
-                    && policy.getEndDate().isEqual(now.minusDays(1))) {
-                log.info("Policy {} for car {} expired on {}", policy.getId(), policy.getCar().getId(), policy.getEndDate());
-                loggedPolicies.add(policy.getId());
-            }
-        });
+        runLock.lock();
+        try {
+            Timer.Sample sample = Timer.start();
+            LocalDate today = LocalDate.now();
+            LocalDate from = today.minus(lookback);
+            List<ExpiredPolicy> batch;
+            int scanned = 0;
+            do {
+                // logged policies drop out of the query, so each batch starts where the last one ended
+                batch = policyRepo.findUnloggedExpiredBetween(from, today, Limit.of(BATCH_SIZE));
+                scanned += batch.size();
+                logAndRecord(batch);
+            } while (batch.size() == BATCH_SIZE);
+            expiryLog.deleteEndedBefore(from);
+            scanRows.record(scanned);
+            sample.stop(scanTimer);
+        } finally {
+            runLock.unlock();
+        }
+    }
+
+    /** Logs the given just-expired policies, skipping any already logged for the same end date. */
+    public void logExpired(List<ExpiredPolicy> expired) {
+        runLock.lock();
+        try {
+            Timer.Sample sample = Timer.start();
+            Map<Long, LocalDate> logged = new HashMap<>();
+            expiryLog.findAllById(expired.stream().map(ExpiredPolicy::policyId).toList())
+                    .forEach(e -> logged.put(e.getPolicyId(), e.getEndDate()));
+            logAndRecord(expired.stream()
+                    .filter(p -> !p.endDate().equals(logged.get(p.policyId())))
+                    .toList());
+            wheelRows.record(expired.size());
+            sample.stop(wheelTimer);
+        } finally {
+            runLock.unlock();
+        }
+    }
+
+    private static Timer runTimer(MeterRegistry registry, String trigger) {
+        return Timer.builder("carins.expiry.run")
+                .description("Duration of a policy expiry logging run")
+                .tag("trigger", trigger)
+                .register(registry);
+    }
+
+    private static DistributionSummary rowsScanned(MeterRegistry registry, String trigger) {
+        return DistributionSummary.builder("carins.expiry.rows.scanned")
+                .description("Expired policies read by a policy expiry logging run")
+                .baseUnit("rows")
+                .tag("trigger", trigger)
+                .register(registry);
+    }
+
+    private void logAndRecord(List<ExpiredPolicy> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<PolicyExpiryLogEntry> entries = new ArrayList<>(batch.size());
+        for (ExpiredPolicy policy : batch) {
+            log.info("Policy {} for car {} expired on {}", policy.policyId(), policy.carId(), policy.endDate());
+            entries.add(new PolicyExpiryLogEntry(policy.policyId(), policy.endDate()));
+        }
+        expiryLog.saveAll(entries);
     }
 }
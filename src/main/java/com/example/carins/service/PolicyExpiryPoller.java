@@ -0,0 +1,28 @@
+package com.example.carins.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Default expiry scheduling: checks for newly expired policies every hour, so each one is
+ * logged at most an hour after it expires. Never lazy, so the hourly task is scheduled at
+ * startup even with {@code spring.main.lazy-initialization}.
+ */
+@Component
+@Lazy(false)
+@ConditionalOnProperty(name = "carins.expiry.scheduler", havingValue = "poll", matchIfMissing = true)
+public class PolicyExpiryPoller {
+
+    private final PolicyExpiryLogger expiryLogger;
+
+    public PolicyExpiryPoller(PolicyExpiryLogger expiryLogger) {
+        this.expiryLogger = expiryLogger;
+    }
+
+    @Scheduled(fixedRate = 60 * 60 * 1000)
+    public void poll() {
+        expiryLogger.logExpiredPolicies();
+    }
+}
@@ -0,0 +1,283 @@
+package com.example.carins.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.carins.model.Car;
+import com.example.carins.model.InsurancePolicy;
+import com.example.carins.repo.PolicyPeriod;
+import com.example.carins.web.dto.PolicyImportRejection;
+import com.example.carins.web.dto.PolicyImportReport;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Streaming import of policies from CSV ({@code carId,provider,startDate,endDate}, optional header).
+ * The file is read in chunks of {@code carins.import.chunk-size} rows; each chunk resolves its car
+ * ids and existing coverage in bulk, rejects rows that would give a car two active policies on the
+ * same day, and inserts the rest in JDBC batches in its own transaction, holding the
+ * {@link CarLockStripes} of its cars so API writes cannot race the overlap check. Memory use is bounded by
+ * the chunk size and the number of reported rejections, not by the file size.
+ */
+@Service
+public class PolicyImportService {
+
+    static final String HEADER = "carId,provider,startDate,endDate";
+
+    private static final Logger log = LoggerFactory.getLogger(PolicyImportService.class);
+
+    private final CarService carService;
+    private final CarLockStripes carLocks;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher events;
+    private final int chunkSize;
+    private final int batchSize;
+    private final int maxReportedRejections;
+
+    public PolicyImportService(CarService carService, CarLockStripes carLocks, EntityManager entityManager,
+            PlatformTransactionManager transactionManager, ApplicationEventPublisher events,
+            @Value("${carins.import.chunk-size:5000}") int chunkSize,
+            @Value("${carins.import.batch-size:500}") int batchSize,
+            @Value("${carins.import.max-reported-rejections:1000}") int maxReportedRejections) {
+        this.carService = carService;
+        this.carLocks = carLocks;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.events = events;
+        this.chunkSize = chunkSize;
+        this.batchSize = batchSize;
+        this.maxReportedRejections = maxReportedRejections;
+    }
+
+    /** A parsed CSV row. */
+    record Row(long line, Long carId, String provider, LocalDate startDate, LocalDate endDate) {}
+
+    public PolicyImportReport importCsv(Reader reader) throws IOException {
+        BufferedReader in = reader instanceof BufferedReader br ? br : new BufferedReader(reader);
+        Progress progress = new Progress(maxReportedRejections);
+        List<Row> chunk = new ArrayList<>(chunkSize);
+        List<PolicyImportRejection> rejections = new ArrayList<>();
+        long lineNo = 0;
+        String line;
+        while ((line = in.readLine()) != null) {
+            lineNo++;
+            if (line.isBlank() || (lineNo == 1 && isHeader(line))) {
+                continue;
+            }
+            progress.rowsRead++;
+            try {
+                chunk.add(parse(lineNo, line));
+            } catch (IllegalArgumentException ex) {
+                rejections.add(new PolicyImportRejection(lineNo, ex.getMessage()));
+            }
+            if (chunk.size() + rejections.size() == chunkSize) {
+                importChunk(chunk, rejections, progress);
+                chunk.clear();
+                rejections.clear();
+            }
+        }
+        importChunk(chunk, rejections, progress);
+        log.info("Policy import finished: {} rows read, {} imported, {} rejected",
+                progress.rowsRead, progress.imported, progress.rejected);
+        return progress.report();
+    }
+
+    private void importChunk(List<Row> rows, List<PolicyImportRejection> rejections, Progress progress) {
+        if (!rows.isEmpty()) {
+            Set<Long> carIds = new HashSet<>();
+            for (Row row : rows) {
+                carIds.add(row.carId());
+            }
+            List<PolicyPeriod> imported = carLocks.withLocks(carIds,
+                    () -> transactionTemplate.execute(status -> insertValid(rows, carIds, rejections)));
+            progress.imported += imported.size();
+            if (!imported.isEmpty()) {
+                events.publishEvent(new PoliciesImportedEvent(imported));
+            }
+        }
+        rejections.sort(Comparator.comparingLong(PolicyImportRejection::line));
+        progress.reject(rejections);
+        if (progress.rowsRead % chunkSize == 0) {
+            log.info("Policy import progress: {} rows read, {} imported, {} rejected",
+                    progress.rowsRead, progress.imported, progress.rejected);
+        }
+    }
+
+    private List<PolicyPeriod> insertValid(List<Row> rows, Set<Long> carIds, List<PolicyImportRejection> rejections) {
+        Set<Long> existingCars = carService.findExistingCarIds(carIds);
+        Map<Long, PolicyIntervals> coverage = carService.storedPolicyIntervalsFor(existingCars);
+
+        Map<Long, List<Row>> rowsByCar = new HashMap<>();
+        for (Row row : rows) {
+            if (existingCars.contains(row.carId())) {
+                rowsByCar.computeIfAbsent(row.carId(), id -> new ArrayList<>()).add(row);
+            } else {
+                rejections.add(new PolicyImportRejection(row.line(), "Car not found"));
+            }
+        }
+        List<Row> accepted = new ArrayList<>(rows.size());
+        rowsByCar.forEach((carId, carRows) ->
+                sweep(carRows, coverage.getOrDefault(carId, PolicyIntervals.EMPTY), accepted, rejections));
+        return persist(accepted);
+    }
+
+    /**
+     * Accepts the rows of one car that neither overlap its existing coverage nor an earlier accepted
+     * row. Rows are swept in start-date order (file order on ties); since accepted rows never overlap,
+     * the last accepted one has the latest end and is the only one a new row needs to be checked against.
+     */
+    static void sweep(List<Row> carRows, PolicyIntervals existing, List<Row> accepted,
+            List<PolicyImportRejection> rejections) {
+        carRows.sort(Comparator.comparing(Row::startDate).thenComparingLong(Row::line));
+        Row last = null;
+        for (Row row : carRows) {
+            if (existing.overlaps(row.startDate(), row.endDate())) {
+                rejections.add(new PolicyImportRejection(row.line(), "Overlaps an existing policy of car " + row.carId()));
+            } else if (last != null && !row.startDate().isAfter(last.endDate())) {
+                rejections.add(new PolicyImportRejection(row.line(), "Overlaps the policy on line " + last.line()));
+            } else {
+                accepted.add(row);
+                last = row;
+            }
+        }
+    }
+
+    private List<PolicyPeriod> persist(List<Row> rows) {
+        Session session = entityManager.unwrap(Session.class);
+        Integer previousBatchSize = session.getJdbcBatchSize();
+        session.setJdbcBatchSize(batchSize);
+        try {
+            List<PolicyPeriod> imported = new ArrayList<>(rows.size());
+            for (Row row : rows) {
+                Car car = entityManager.getReference(Car.class, row.carId());
+                InsurancePolicy policy = new InsurancePolicy(car, row.provider(), row.startDate(), row.endDate());
+                entityManager.persist(policy);
+                imported.add(new PolicyPeriod(policy.getId(), row.carId(), row.startDate(), row.endDate()));
+                if (imported.size() % batchSize == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+            }
+            entityManager.flush();
+            entityManager.clear();
+            return imported;
+        } finally {
+            session.setJdbcBatchSize(previousBatchSize);
+        }
+    }
+
+    private static boolean isHeader(String line) {
+        return line.strip().toLowerCase(Locale.ROOT).startsWith("carid");
+    }
+
+    static Row parse(long line, String text) {
+        List<String> cols = splitCsv(text);
+        if (cols.size() != 4) {
+            throw new IllegalArgumentException("Expected 4 columns: " + HEADER + ".");
+        }
+        Long carId;
+        try {
+            carId = Long.valueOf(required(cols.get(0), "Car ID is required"));
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid car ID.");
+        }
+        String provider = required(cols.get(1), "Provider is required");
+        LocalDate start = parseDate(required(cols.get(2), "Start date is required"));
+        LocalDate end = parseDate(required(cols.get(3), "End date is required"));
+        if (end.isBefore(start)) {
+            throw new IllegalArgumentException("End date must not be before start date.");
+        }
+        return new Row(line, carId, provider, start, end);
+    }
+
+    private static String required(String value, String message) {
+        if (value.isBlank()) {
+            throw new IllegalArgumentException(message);
+        }
+        return value.strip();
+    }
+
+    private static LocalDate parseDate(String date) {
+        try {
+            return LocalDate.parse(date);
+        } catch (Exception ex) {
+            throw new IllegalArgumentException("Invalid date format. Use ISO YYYY-MM-DD.");
+        }
+    }
+
+    /** Splits one CSV line; fields may be double-quoted, with {@code ""} as an escaped quote. */
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>(4);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /** Running totals of one import; keeps only the first rejections to bound the report size. */
+    private static final class Progress {
+        private final int maxReported;
+        private final List<PolicyImportRejection> reported = new ArrayList<>();
+        private long rowsRead;
+        private long imported;
+        private long rejected;
+
+        Progress(int maxReported) {
+            this.maxReported = maxReported;
+        }
+
+        void reject(List<PolicyImportRejection> rejections) {
+            rejected += rejections.size();
+            for (PolicyImportRejection r : rejections) {
+                if (reported.size() == maxReported) {
+                    break;
+                }
+                reported.add(r);
+            }
+        }
+
+        PolicyImportReport report() {
+            return new PolicyImportReport(rowsRead, imported, rejected, List.copyOf(reported), rejected > reported.size());
+        }
+    }
+}
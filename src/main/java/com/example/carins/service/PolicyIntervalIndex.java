@@ -0,0 +1,124 @@
+package com.example.carins.service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.example.carins.repo.InsurancePolicyRepository;
+import com.example.carins.repo.PolicyPeriod;
+
+/**
+ * Optional in-memory index of policy coverage per car, answering validity checks
+ * without a database round-trip. Enabled with {@code carins.policy-index.enabled=true};
+ * when disabled, or while the initial load is still running, callers should fall back
+ * to {@link InsurancePolicyRepository#existsActiveOnDate}.
+ * <p>
+ * Every read of the database takes a ticket before it queries, and its result replaces a car's
+ * entry only if no read with a later ticket has been installed for that car. A read that starts
+ * later sees every commit an earlier one saw, so the entry with the highest ticket is never older
+ * than the others. A car left without policies keeps an empty entry, so the startup load cannot put
+ * back intervals a write has already removed.
+ */
+@Component
+public class PolicyIntervalIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(PolicyIntervalIndex.class);
+
+    private final InsurancePolicyRepository policyRepository;
+    private final boolean enabled;
+    private final Map<Long, Entry> intervalsByCar = new ConcurrentHashMap<>();
+    private final AtomicLong tickets = new AtomicLong();
+    private volatile boolean ready;
+
+    public PolicyIntervalIndex(InsurancePolicyRepository policyRepository,
+            @Value("${carins.policy-index.enabled:false}") boolean enabled) {
+        this.policyRepository = policyRepository;
+        this.enabled = enabled;
+    }
+
+    /** True when the index is enabled and fully loaded, i.e. it can replace the repository query. */
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    public boolean isCovered(Long carId, LocalDate date) {
+        return intervalsFor(carId).covers(date);
+    }
+
+    public PolicyIntervals intervalsFor(Long carId) {
+        Entry entry = intervalsByCar.get(carId);
+        return entry != null ? entry.intervals : PolicyIntervals.EMPTY;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        long started = System.nanoTime();
+        long ticket = tickets.incrementAndGet();
+        List<PolicyPeriod> periods = policyRepository.findAllPeriods();
+        List<PolicyPeriod> group = new ArrayList<>();
+        Long currentCar = null;
+        for (PolicyPeriod p : periods) {
+            if (currentCar != null && !currentCar.equals(p.carId())) {
+                install(currentCar, ticket, PolicyIntervals.of(group));
+                group.clear();
+            }
+            currentCar = p.carId();
+            group.add(p);
+        }
+        if (currentCar != null) {
+            install(currentCar, ticket, PolicyIntervals.of(group));
+        }
+        ready = true;
+        log.info("Policy interval index loaded {} policies for {} cars in {} ms",
+                periods.size(), intervalsByCar.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /** Installs a read unless a read that started later has already been installed for the car. */
+    private void install(Long carId, long ticket, PolicyIntervals intervals) {
+        intervalsByCar.compute(carId, (id, current) ->
+                current != null && current.ticket > ticket ? current : new Entry(ticket, intervals));
+    }
+
+    @EventListener
+    public void onPolicyChanged(PolicyChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        refresh(event.carId());
+        if (event.carChanged()) {
+            refresh(event.previousCarId());
+        }
+    }
+
+    @EventListener
+    public void onPoliciesImported(PoliciesImportedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        event.carIds().forEach(this::refresh);
+    }
+
+    /** Rebuilds one car's intervals from committed data; the query runs outside the map's locks. */
+    void refresh(Long carId) {
+        if (carId == null) {
+            return;
+        }
+        long ticket = tickets.incrementAndGet();
+        install(carId, ticket, PolicyIntervals.of(policyRepository.findPeriodsByCarId(carId)));
+    }
+
+    private record Entry(long ticket, PolicyIntervals intervals) {}
+}
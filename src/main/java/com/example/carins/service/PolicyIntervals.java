@@ -0,0 +1,102 @@
+package com.example.carins.service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+import com.example.carins.repo.PolicyPeriod;
+
+/**
+ * Immutable, sorted and non-overlapping coverage intervals of a single car,
+ * stored as inclusive epoch-day bounds in two parallel primitive arrays.
+ * Overlapping or adjacent policy periods are merged when the instance is built,
+ * so a coverage check is a single binary search.
+ */
+public final class PolicyIntervals {
+
+    public static final PolicyIntervals EMPTY = new PolicyIntervals(new long[0], new long[0]);
+
+    /** End bound used for policies without an end date (treated as open-ended, like the JPQL query). */
+    private static final long OPEN_END = Long.MAX_VALUE;
+
+    private final long[] starts;
+    private final long[] ends;
+
+    private PolicyIntervals(long[] starts, long[] ends) {
+        this.starts = starts;
+        this.ends = ends;
+    }
+
+    /**
+     * Builds the coverage of one car from its policy periods, in any order.
+     * Periods without a start date never match the repository query and are skipped.
+     */
+    public static PolicyIntervals of(Collection<PolicyPeriod> periods) {
+        List<PolicyPeriod> sorted = new ArrayList<>(periods.size());
+        for (PolicyPeriod p : periods) {
+            if (p.startDate() != null) {
+                sorted.add(p);
+            }
+        }
+        if (sorted.isEmpty()) {
+            return EMPTY;
+        }
+        sorted.sort(Comparator.comparing(PolicyPeriod::startDate));
+
+        long[] starts = new long[sorted.size()];
+        long[] ends = new long[sorted.size()];
+        int n = 0;
+        for (PolicyPeriod p : sorted) {
+            long start = p.startDate().toEpochDay();
+            long end = p.endDate() != null ? p.endDate().toEpochDay() : OPEN_END;
+            if (end < start) {
+                continue;
+            }
+            if (n > 0 && ends[n - 1] != OPEN_END && start <= ends[n - 1] + 1) {
+                ends[n - 1] = Math.max(ends[n - 1], end);
+            } else if (n > 0 && ends[n - 1] == OPEN_END) {
+                continue;
+            } else {
+                starts[n] = start;
+                ends[n] = end;
+                n++;
+            }
+        }
+        return n == 0 ? EMPTY : new PolicyIntervals(Arrays.copyOf(starts, n), Arrays.copyOf(ends, n));
+    }
+
+    public boolean covers(LocalDate date) {
+        return covers(date.toEpochDay());
+    }
+
+    public boolean covers(long epochDay) {
+        // last interval starting on or before the day; intervals are disjoint, so it is the only candidate
+        int idx = Arrays.binarySearch(starts, epochDay);
+        if (idx < 0) {
+            idx = -idx - 2;
+        }
+        return idx >= 0 && ends[idx] >= epochDay;
+    }
+
+    /** True if any covered day lies within {@code [start, end]} (inclusive). */
+    public boolean overlaps(LocalDate start, LocalDate end) {
+        long from = start.toEpochDay();
+        int idx = Arrays.binarySearch(starts, end.toEpochDay());
+        if (idx < 0) {
+            idx = -idx - 2;
+        }
+        // intervals are disjoint and sorted, so the last one starting by 'end' also ends last
+        return idx >= 0 && ends[idx] >= from;
+    }
+
+    public int size() {
+        return starts.length;
+    }
+
+    public boolean isEmpty() {
+        return starts.length == 0;
+    }
+}
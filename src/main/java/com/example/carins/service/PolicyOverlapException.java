@@ -0,0 +1,19 @@
+package com.example.carins.service;
+
+import com.example.carins.repo.PolicyPeriod;
+
+/** Thrown when a policy write would give a car two policies active on the same day. */
+public class PolicyOverlapException extends RuntimeException {
+
+    private final PolicyPeriod conflicting;
+
+    public PolicyOverlapException(PolicyPeriod conflicting) {
+        super("Overlaps policy " + conflicting.policyId() + " of car " + conflicting.carId()
+                + " (" + conflicting.startDate() + " to " + conflicting.endDate() + ").");
+        this.conflicting = conflicting;
+    }
+
+    public PolicyPeriod getConflicting() {
+        return conflicting;
+    }
+}
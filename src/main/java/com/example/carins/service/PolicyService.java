@@ -0,0 +1,110 @@
+package com.example.carins.service;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.carins.model.Car;
+import com.example.carins.model.InsurancePolicy;
+import com.example.carins.repo.InsurancePolicyRepository;
+import com.example.carins.repo.PolicyPeriod;
+
+/**
+ * Creates and updates policies while keeping at most one policy active per car and day. Each
+ * write holds the car's lock stripe for its whole transaction, so the overlap check always sees
+ * every earlier committed write to that car; writes to other cars proceed in parallel.
+ */
+@Service
+public class PolicyService {
+
+    private final InsurancePolicyRepository policyRepository;
+    private final CarLockStripes carLocks;
+    private final TransactionTemplate transactionTemplate;
+
+    public PolicyService(InsurancePolicyRepository policyRepository, CarLockStripes carLocks,
+            PlatformTransactionManager transactionManager) {
+        this.policyRepository = policyRepository;
+        this.carLocks = carLocks;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /** Saves a new policy; throws {@link PolicyOverlapException} if it overlaps one of the car's policies. */
+    public InsurancePolicy createPolicy(Car car, String provider, LocalDate startDate, LocalDate endDate) {
+        return carLocks.withLock(car.getId(), () -> transactionTemplate.execute(status -> {
+            findOverlap(car.getId(), null, startDate, endDate).ifPresent(p -> {
+                throw new PolicyOverlapException(p);
+            });
+            return policyRepository.save(new InsurancePolicy(car, provider, startDate, endDate));
+        }));
+    }
+
+    /**
+     * Moves an existing policy to the given car and period; throws {@link PolicyOverlapException} if
+     * it would overlap another policy of that car. Holds the locks of both the old and the new car.
+     * The policy is re-read under those locks, since {@code policy} may have been loaded before a
+     * concurrent update moved it; if its car changed meanwhile, the locks are taken again for the
+     * car it is on now. Returns the change with the values the update actually replaced.
+     */
+    public PolicyChangedEvent updatePolicy(InsurancePolicy policy, Car car, String provider,
+            LocalDate startDate, LocalDate endDate) {
+        Long lockedCarId = carIdOf(policy);
+        while (true) {
+            Long expectedCarId = lockedCarId;
+            Update update = carLocks.withLocks(Arrays.asList(expectedCarId, car.getId()), () -> transactionTemplate.execute(status -> {
+                InsurancePolicy current = policyRepository.findById(policy.getId()).orElseThrow();
+                Long previousCarId = carIdOf(current);
+                if (!Objects.equals(previousCarId, expectedCarId)) {
+                    return new Update(null, previousCarId);
+                }
+                findOverlap(car.getId(), current.getId(), startDate, endDate).ifPresent(p -> {
+                    throw new PolicyOverlapException(p);
+                });
+                LocalDate previousEndDate = current.getEndDate();
+                current.setCar(car);
+                current.setProvider(provider);
+                current.setStartDate(startDate);
+                current.setEndDate(endDate);
+                return new Update(new PolicyChangedEvent(policyRepository.save(current), previousCarId, previousEndDate),
+                        previousCarId);
+            }));
+            if (update.change() != null) {
+                return update.change();
+            }
+            lockedCarId = update.carId();
+        }
+    }
+
+    private static Long carIdOf(InsurancePolicy policy) {
+        return policy.getCar() != null ? policy.getCar().getId() : null;
+    }
+
+    /** Outcome of one locked attempt: the change, or null with the car the policy was found on. */
+    private record Update(PolicyChangedEvent change, Long carId) {
+    }
+
+    /**
+     * First of the car's policies, other than {@code excludeId}, sharing a day with [start, end].
+     * Periods come sorted by start date, so the scan stops at the first one starting after {@code end}.
+     */
+    Optional<PolicyPeriod> findOverlap(Long carId, Long excludeId, LocalDate start, LocalDate end) {
+        List<PolicyPeriod> periods = policyRepository.findPeriodsByCarId(carId);
+        for (PolicyPeriod p : periods) {
+            if (p.startDate() == null || p.policyId().equals(excludeId)) {
+                continue;
+            }
+            if (p.startDate().isAfter(end)) {
+                break;
+            }
+            if (p.endDate() == null || !p.endDate().isBefore(start)) {
+                return Optional.of(p);
+            }
+        }
+        return Optional.empty();
+    }
+}
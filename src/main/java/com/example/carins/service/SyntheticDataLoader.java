@@ -0,0 +1,223 @@
+package com.example.carins.service;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Seeds the database with a {@link SyntheticFleet} of {@code carins.synthetic.cars} cars when the
+ * application has started, before the in-memory indexes are built on the ready event. Rows go
+ * straight from the generator into JDBC batches of {@code carins.synthetic.batch-size} rows per
+ * table, committed batch by batch on one connection, bypassing JPA. Ids continue after the
+ * existing rows, and the identity columns and id sequences are moved past the loaded ones.
+ */
+@Component
+public class SyntheticDataLoader {
+
+    private static final Logger log = LoggerFactory.getLogger(SyntheticDataLoader.class);
+    /** allocationSize of the pooled policy and claim sequences: a fetched value v hands out (v - 500, v]. */
+    private static final long SEQUENCE_BLOCK = 500;
+
+    private final JdbcTemplate jdbc;
+    private final int cars;
+    private final long seed;
+    private final String asOf;
+    private final int batchSize;
+
+    public SyntheticDataLoader(JdbcTemplate jdbc,
+            @Value("${carins.synthetic.cars:0}") int cars,
+            @Value("${carins.synthetic.seed:42}") long seed,
+            @Value("${carins.synthetic.as-of:}") String asOf,
+            @Value("${carins.synthetic.batch-size:10000}") int batchSize) {
+        this.jdbc = jdbc;
+        this.cars = cars;
+        this.seed = seed;
+        this.asOf = asOf;
+        this.batchSize = batchSize;
+    }
+
+    /** Loads the fleet unless a persistent database still holds one from an earlier start. */
+    @EventListener(ApplicationStartedEvent.class)
+    public void onStarted() {
+        if (cars <= 0) {
+            return;
+        }
+        Long present = jdbc.queryForObject("SELECT COUNT(*) FROM car WHERE vin LIKE '" + SyntheticFleet.VIN_PREFIX + "%'", Long.class);
+        if (present != null && present > 0) {
+            log.info("Synthetic fleet already present ({} cars), not loading it again", present);
+            return;
+        }
+        load(new SyntheticFleet(seed, cars, asOf.isBlank() ? LocalDate.now() : LocalDate.parse(asOf)));
+    }
+
+    public SyntheticFleet.Counts load(SyntheticFleet fleet) {
+        SyntheticFleet.Ids first = new SyntheticFleet.Ids(nextId("owner"), nextId("car"),
+                Math.max(nextId("insurancepolicy"), sequenceValue("INSURANCEPOLICY_SEQ")),
+                Math.max(nextId("insuranceclaim"), sequenceValue("INSURANCECLAIM_SEQ")));
+        long started = System.nanoTime();
+        BatchSink sink = jdbc.execute((ConnectionCallback<BatchSink>) connection -> {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (BatchSink batches = new BatchSink(connection, batchSize)) {
+                batches.counts = fleet.generate(first, batches);
+                batches.flush();
+                return batches;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        });
+
+        jdbc.execute("ALTER TABLE owner ALTER COLUMN id RESTART WITH " + nextId("owner"));
+        jdbc.execute("ALTER TABLE car ALTER COLUMN id RESTART WITH " + nextId("car"));
+        // the next block Hibernate fetches must start after the loaded ids
+        jdbc.execute("ALTER SEQUENCE insurancepolicy_seq RESTART WITH " + (nextId("insurancepolicy") - 1 + SEQUENCE_BLOCK));
+        jdbc.execute("ALTER SEQUENCE insuranceclaim_seq RESTART WITH " + (nextId("insuranceclaim") - 1 + SEQUENCE_BLOCK));
+
+        SyntheticFleet.Counts counts = sink.counts;
+        long millis = (System.nanoTime() - started) / 1_000_000;
+        log.info("Synthetic fleet loaded: {} owners, {} cars, {} policies, {} claims in {} ms ({} rows/s)",
+                counts.owners(), counts.cars(), counts.policies(), counts.claims(), millis,
+                perSecond(counts.total(), millis));
+        log.info("Insert rates excluding generation: owners {} rows/s, cars {} rows/s, policies {} rows/s, claims {} rows/s",
+                perSecond(counts.owners(), sink.owners.millis()), perSecond(counts.cars(), sink.cars.millis()),
+                perSecond(counts.policies(), sink.policies.millis()), perSecond(counts.claims(), sink.claims.millis()));
+        return counts;
+    }
+
+    private long nextId(String table) {
+        Long max = jdbc.queryForObject("SELECT MAX(id) FROM " + table, Long.class);
+        return max == null ? 1 : max + 1;
+    }
+
+    private long sequenceValue(String sequence) {
+        Long value = jdbc.queryForObject(
+                "SELECT BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_NAME = ?", Long.class, sequence);
+        return value == null ? 1 : value;
+    }
+
+    private static long perSecond(long rows, long millis) {
+        return rows * 1000 / Math.max(1, millis);
+    }
+
+    /** One prepared insert per table, with its pending batch and the time spent executing it. */
+    private static final class TableBatch implements AutoCloseable {
+
+        private final PreparedStatement insert;
+        private int pending;
+        private long nanos;
+
+        TableBatch(Connection connection, String sql) throws SQLException {
+            this.insert = connection.prepareStatement(sql);
+        }
+
+        void add(Object... values) throws SQLException {
+            for (int i = 0; i < values.length; i++) {
+                insert.setObject(i + 1, values[i]);
+            }
+            insert.addBatch();
+            pending++;
+        }
+
+        void execute() throws SQLException {
+            if (pending > 0) {
+                long started = System.nanoTime();
+                insert.executeBatch();
+                nanos += System.nanoTime() - started;
+                pending = 0;
+            }
+        }
+
+        long millis() {
+            return nanos / 1_000_000;
+        }
+
+        @Override
+        public void close() throws SQLException {
+            insert.close();
+        }
+    }
+
+    /**
+     * Buffers rows per table. When any batch is full, all four are sent in foreign-key order
+     * (owners, cars, policies, claims) and committed, so every row finds its parent.
+     */
+    private static final class BatchSink implements SyntheticFleet.Sink, AutoCloseable {
+
+        private final Connection connection;
+        private final int batchSize;
+        final TableBatch owners;
+        final TableBatch cars;
+        final TableBatch policies;
+        final TableBatch claims;
+        SyntheticFleet.Counts counts;
+
+        BatchSink(Connection connection, int batchSize) throws SQLException {
+            this.connection = connection;
+            this.batchSize = batchSize;
+            owners = new TableBatch(connection, "INSERT INTO owner (id, name, email) VALUES (?, ?, ?)");
+            cars = new TableBatch(connection,
+                    "INSERT INTO car (id, vin, make, model, year_of_manufacture, owner_id) VALUES (?, ?, ?, ?, ?, ?)");
+            policies = new TableBatch(connection,
+                    "INSERT INTO insurancepolicy (id, car_id, provider, start_date, end_date) VALUES (?, ?, ?, ?, ?)");
+            claims = new TableBatch(connection,
+                    "INSERT INTO insuranceclaim (id, car_id, claim_date, description, amount) VALUES (?, ?, ?, ?, ?)");
+        }
+
+        @Override
+        public void owner(long id, String name, String email) {
+            add(owners, id, name, email);
+        }
+
+        @Override
+        public void car(long id, String vin, String make, String model, int year, long ownerId) {
+            add(cars, id, vin, make, model, year, ownerId);
+        }
+
+        @Override
+        public void policy(long id, long carId, String provider, LocalDate start, LocalDate end) {
+            add(policies, id, carId, provider, start, end);
+        }
+
+        @Override
+        public void claim(long id, long carId, LocalDate date, String description, long amountCents) {
+            add(claims, id, carId, date, description, BigDecimal.valueOf(amountCents, 2));
+        }
+
+        private void add(TableBatch batch, Object... values) {
+            try {
+                batch.add(values);
+                if (batch.pending >= batchSize) {
+                    flush();
+                }
+            } catch (SQLException ex) {
+                throw new IllegalStateException("Synthetic fleet insert failed", ex);
+            }
+        }
+
+        void flush() throws SQLException {
+            owners.execute();
+            cars.execute();
+            policies.execute();
+            claims.execute();
+            connection.commit();
+        }
+
+        @Override
+        public void close() throws SQLException {
+            try (owners; cars; policies; claims) {
+                // closes all four statements, even if one fails
+            }
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.carins.service;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic generator of a synthetic fleet at production scale: the same seed, size and
+ * {@code asOf} date always produce the same rows. Distributions aim to look like a real book:
+ * <ul>
+ * <li>owners hold one car mostly, sometimes two or three;</li>
+ * <li>each car has a chain of 12- or 6-month policies ending around {@code asOf}, renewed back to
+ * back or after a short lapse, mostly with the same provider; chains never overlap;</li>
+ * <li>claims per car follow a heavy-tailed (Lomax) distribution, so about two thirds of the cars
+ * have none while a few have dozens; claim dates fall inside the car's coverage and amounts are
+ * log-normal.</li>
+ * </ul>
+ * Rows are streamed to a {@link Sink} one car at a time, so memory does not grow with the size.
+ */
+public final class SyntheticFleet {
+
+    /** Every generated VIN starts with this, so generated cars can be told apart from real ones. */
+    public static final String VIN_PREFIX = "SYN";
+
+    /** Receives generated rows; owners always arrive before their cars, cars before their policies and claims. */
+    public interface Sink {
+
+        void owner(long id, String name, String email);
+
+        void car(long id, String vin, String make, String model, int year, long ownerId);
+
+        void policy(long id, long carId, String provider, LocalDate start, LocalDate end);
+
+        void claim(long id, long carId, LocalDate date, String description, long amountCents);
+    }
+
+    /** First id to use per table. */
+    public record Ids(long owner, long car, long policy, long claim) {}
+
+    /** Rows generated per table. */
+    public record Counts(long owners, long cars, long policies, long claims) {
+
+        public long total() {
+            return owners + cars + policies + claims;
+        }
+    }
+
+    private static final String[][] MODELS = {
+            { "Dacia", "Logan", "Sandero", "Duster" },
+            { "Volkswagen", "Golf", "Polo", "Passat" },
+            { "Skoda", "Octavia", "Fabia" },
+            { "Renault", "Clio", "Megane" },
+            { "Ford", "Focus", "Fiesta", "Kuga" },
+            { "Toyota", "Corolla", "Yaris", "RAV4" },
+            { "BMW", "3 Series", "X1" },
+            { "Tesla", "Model 3", "Model Y" } };
+    /** Relative popularity of {@link #MODELS}' makes, and of {@link #PROVIDERS} as market shares. */
+    private static final int[] MAKE_WEIGHTS = { 30, 20, 15, 12, 10, 8, 4, 1 };
+    private static final String[] PROVIDERS = { "Allianz", "Groupama", "Generali", "Omniasig", "Asirom", "Euroins" };
+    private static final int[] PROVIDER_WEIGHTS = { 30, 25, 18, 12, 10, 5 };
+    private static final String[] DESCRIPTIONS = { "Rear-end collision", "Parking damage", "Windshield",
+            "Theft of parts", "Hail damage", "Side collision", "Vandalism", "Flood damage" };
+
+    /** Lomax shape for claims per car: lower means a heavier tail. */
+    private static final double CLAIM_TAIL = 1.6;
+    private static final int MAX_CLAIMS_PER_CAR = 200;
+    private static final int MAX_HISTORY_DAYS = 8 * 365;
+
+    private final long seed;
+    private final int cars;
+    private final LocalDate asOf;
+
+    public SyntheticFleet(long seed, int cars, LocalDate asOf) {
+        this.seed = seed;
+        this.cars = cars;
+        this.asOf = asOf;
+    }
+
+    public Counts generate(Ids first, Sink sink) {
+        SplittableRandom random = new SplittableRandom(seed);
+        long ownerId = first.owner() - 1;
+        long policyId = first.policy();
+        long claimId = first.claim();
+        int carsLeftForOwner = 0;
+        long[] starts = new long[64];
+        long[] ends = new long[64];
+
+        for (int c = 0; c < cars; c++) {
+            if (carsLeftForOwner == 0) {
+                ownerId++;
+                sink.owner(ownerId, "Owner " + ownerId, "owner" + ownerId + "@example.com");
+                int p = random.nextInt(100);
+                carsLeftForOwner = p < 70 ? 1 : p < 90 ? 2 : 3;
+            }
+            carsLeftForOwner--;
+
+            long carId = first.car() + c;
+            String[] make = MODELS[weighted(random, MAKE_WEIGHTS)];
+            int year = asOf.getYear() - Math.min(25, (int) (-Math.log(1 - random.nextDouble()) * 7));
+            sink.car(carId, String.format(VIN_PREFIX + "%014X", carId), make[0], make[1 + random.nextInt(make.length - 1)],
+                    year, ownerId);
+
+            // policy chain: from up to eight years back (not before the car was built) until it covers asOf
+            LocalDate built = LocalDate.of(year, 1, 1).plusDays(random.nextInt(365));
+            LocalDate start = asOf.minusDays(random.nextInt(MAX_HISTORY_DAYS));
+            if (start.isBefore(built)) {
+                start = built.isAfter(asOf) ? asOf : built;
+            }
+            int provider = weighted(random, PROVIDER_WEIGHTS);
+            int policies = 0;
+            while (!start.isAfter(asOf)) {
+                LocalDate end = start.plusMonths(random.nextInt(5) == 0 ? 6 : 12).minusDays(1);
+                sink.policy(policyId++, carId, PROVIDERS[provider], start, end);
+                if (policies == starts.length) {
+                    starts = Arrays.copyOf(starts, policies * 2);
+                    ends = Arrays.copyOf(ends, policies * 2);
+                }
+                starts[policies] = start.toEpochDay();
+                ends[policies] = Math.min(end.toEpochDay(), asOf.toEpochDay());
+                policies++;
+                if (random.nextInt(100) < 3) {
+                    break; // the car left the book
+                }
+                start = end.plusDays(random.nextInt(10) == 0 ? 1 + random.nextInt(90) : 1);
+                if (random.nextInt(100) < 15) {
+                    provider = weighted(random, PROVIDER_WEIGHTS);
+                }
+            }
+
+            double tail = Math.pow(1 - random.nextDouble(), -1 / CLAIM_TAIL) - 1;
+            int claims = (int) Math.min(MAX_CLAIMS_PER_CAR, tail);
+            for (int k = 0; k < claims; k++) {
+                int p = random.nextInt(policies);
+                long day = starts[p] + random.nextLong(ends[p] - starts[p] + 1);
+                long cents = Math.max(5_000, Math.min(50_000_000, Math.round(Math.exp(11.7 + random.nextGaussian()))));
+                sink.claim(claimId++, carId, LocalDate.ofEpochDay(day),
+                        DESCRIPTIONS[random.nextInt(DESCRIPTIONS.length)], cents);
+            }
+        }
+        return new Counts(ownerId - first.owner() + 1, cars, policyId - first.policy(), claimId - first.claim());
+    }
+
+    private static int weighted(SplittableRandom random, int[] weights) {
+        int total = 0;
+        for (int w : weights) {
+            total += w;
+        }
+        int pick = random.nextInt(total);
+        for (int i = 0; i < weights.length; i++) {
+            pick -= weights[i];
+            if (pick < 0) {
+                return i;
+            }
+        }
+        return weights.length - 1;
+    }
+}
@@ -0,0 +1,252 @@
+package com.example.carins.web;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Caps how many {@code /api} requests run at once with a {@link GradientLimit} that adapts to
+ * their latency, so when the database slows down the excess is shed with 503 and Retry-After
+ * instead of queueing without bound. The limit is never exceeded. Inside it, each of four
+ * partitions reserves {@code carins.concurrency-limit.share.<partition>} of the limit, rounded
+ * down; the shares add up to at most 1 and whatever they leave is a shared pool. A partition runs
+ * on its reservation first and borrows from the pool beyond it, but never into the unused
+ * reservations of the others, so a burst of history reads cannot take the room validity checks
+ * are promised. Validity checks hold the largest share; history/analytics and bulk endpoints
+ * hold small ones, so they are the first to be turned away.
+ * <p>
+ * Only validity checks and other single reads and writes feed their latency to the limit:
+ * history pages and bulk requests take as long as the work they are given, which says little
+ * about how loaded the database is. A request holds its permit until its response completes,
+ * including asynchronous processing on the {@link EndpointBulkheads}. Opt-in with
+ * {@code carins.concurrency-limit.enabled=true}.
+ * <p>
+ * Metrics: {@code carins.concurrency.limit} (the adaptive limit), and per {@code partition}
+ * {@code carins.concurrency.partition.limit}, {@code carins.concurrency.inflight} and
+ * {@code carins.concurrency.rejected}.
+ */
+@Component
+// ahead of ConnectionPoolConcurrencyFilter, so excess requests are shed before they wait for the pool
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+@ConditionalOnProperty(name = "carins.concurrency-limit.enabled", havingValue = "true")
+public class AdaptiveConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    /** Endpoint classes that share the limit. */
+    enum Partition {
+        /** GET /api/cars/{id}/insurance-valid. */
+        VALIDITY(true),
+        /** Single reads and writes not listed elsewhere. */
+        DEFAULT(true),
+        /** GET /api/cars/{id}/history and /api/analytics. */
+        HISTORY(false),
+        /** Batch validity, bulk claims, policy import and fleet export. */
+        BULK(false);
+
+        /** Whether this partition's latency is fed to the limit. */
+        private final boolean sampled;
+
+        Partition(boolean sampled) {
+            this.sampled = sampled;
+        }
+
+        static Partition of(HttpServletRequest request) {
+            String uri = request.getRequestURI();
+            boolean get = "GET".equals(request.getMethod());
+            if (uri.endsWith("/insurance-valid")) {
+                return get ? VALIDITY : BULK;
+            }
+            if (uri.endsWith("/claims/bulk") || uri.startsWith("/api/policies/import") || uri.equals("/api/cars/export")) {
+                return BULK;
+            }
+            if (uri.endsWith("/history") || uri.startsWith("/api/analytics/")) {
+                return HISTORY;
+            }
+            return DEFAULT;
+        }
+
+        String tag() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final GradientLimit limit;
+    private final AtomicInteger inflight = new AtomicInteger();
+    private final Map<Partition, Share> shares = new EnumMap<>(Partition.class);
+
+    @Autowired
+    public AdaptiveConcurrencyLimitFilter(ObjectProvider<MeterRegistry> meterRegistry,
+            @Value("${carins.concurrency-limit.initial:20}") int initialLimit,
+            @Value("${carins.concurrency-limit.min:4}") int minLimit,
+            @Value("${carins.concurrency-limit.max:200}") int maxLimit,
+            @Value("${carins.concurrency-limit.window-samples:20}") int windowSamples,
+            @Value("${carins.concurrency-limit.share.validity:0.4}") double validityShare,
+            @Value("${carins.concurrency-limit.share.default:0.2}") double defaultShare,
+            @Value("${carins.concurrency-limit.share.history:0.1}") double historyShare,
+            @Value("${carins.concurrency-limit.share.bulk:0.1}") double bulkShare) {
+        this(new GradientLimit(initialLimit, minLimit, maxLimit, windowSamples),
+                Map.of(Partition.VALIDITY, validityShare, Partition.DEFAULT, defaultShare,
+                        Partition.HISTORY, historyShare, Partition.BULK, bulkShare),
+                meterRegistry.getIfAvailable(SimpleMeterRegistry::new));
+    }
+
+    AdaptiveConcurrencyLimitFilter(GradientLimit limit, Map<Partition, Double> shares, MeterRegistry registry) {
+        if (shares.values().stream().mapToDouble(Double::doubleValue).sum() > 1.0 + 1e-9) {
+            throw new IllegalArgumentException("carins.concurrency-limit.share.* must add up to at most 1.");
+        }
+        this.limit = limit;
+        Gauge.builder("carins.concurrency.limit", limit, GradientLimit::limit).register(registry);
+        for (Partition partition : Partition.values()) {
+            Share share = new Share(partition, shares.get(partition), Counter.builder("carins.concurrency.rejected")
+                    .tag("partition", partition.tag()).register(registry));
+            Gauge.builder("carins.concurrency.partition.limit", share, this::reserved)
+                    .tag("partition", partition.tag()).register(registry);
+            Gauge.builder("carins.concurrency.inflight", share.inflight, AtomicInteger::get)
+                    .tag("partition", partition.tag()).register(registry);
+            this.shares.put(partition, share);
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Share share = shares.get(Partition.of(request));
+        int startedWith = tryAcquire(share);
+        if (startedWith < 0) {
+            share.rejected.increment();
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Server busy, retry later.");
+            return;
+        }
+        Permit permit = new Permit(share, startedWith, System.nanoTime());
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(permit);
+            } else {
+                permit.release();
+            }
+        }
+    }
+
+    /**
+     * Admits a request if the total stays within the limit and the partition is within its
+     * reservation, or can borrow from the pool without touching the other partitions' unused
+     * reservations; returns the number in flight including it, or -1 if it is rejected.
+     */
+    private int tryAcquire(Share share) {
+        int total = inflight.incrementAndGet();
+        int mine = share.inflight.incrementAndGet();
+        int current = limit.limit();
+        if (total > current || (mine > reserved(share) && total + unusedReservations(share) > current)) {
+            share.inflight.decrementAndGet();
+            inflight.decrementAndGet();
+            return -1;
+        }
+        return total;
+    }
+
+    private int reserved(Share share) {
+        return (int) (share.fraction * limit.limit());
+    }
+
+    /** Reserved permits the other partitions are not using. */
+    private int unusedReservations(Share except) {
+        int unused = 0;
+        for (Share share : shares.values()) {
+            if (share != except) {
+                unused += Math.max(0, reserved(share) - share.inflight.get());
+            }
+        }
+        return unused;
+    }
+
+    int limit() {
+        return limit.limit();
+    }
+
+    int inflight(Partition partition) {
+        return shares.get(partition).inflight.get();
+    }
+
+    private record Share(Partition partition, double fraction, Counter rejected, AtomicInteger inflight) {
+
+        Share(Partition partition, double fraction, Counter rejected) {
+            this(partition, fraction, rejected, new AtomicInteger());
+        }
+    }
+
+    /** One admitted request; released once, when the response completes, fails or times out. */
+    private final class Permit implements AsyncListener {
+
+        private final Share share;
+        private final int startedWith;
+        private final long startNanos;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        Permit(Share share, int startedWith, long startNanos) {
+            this.share = share;
+            this.startedWith = startedWith;
+            this.startNanos = startNanos;
+        }
+
+        void release() {
+            if (released.compareAndSet(false, true)) {
+                share.inflight.decrementAndGet();
+                inflight.decrementAndGet();
+                if (share.partition.sampled) {
+                    limit.onSample(System.nanoTime() - startNanos, startedWith);
+                }
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
@@ -1,37 +1,75 @@
 package com.example.carins.web;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
 
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.util.UriComponentsBuilder;
 
-import com.example.carins.model.Car;
 import com.example.carins.repo.InsuranceClaimRepository;
-import com.example.carins.repo.InsurancePolicyRepository;
+import com.example.carins.service.CarHistoryService;
 import com.example.carins.service.CarService;
-import com.example.carins.web.dto.CarDto;
+import com.example.carins.service.ClaimService;
+import com.example.carins.service.DataVersions;
+import com.example.carins.service.PolicyIntervals;
+import com.example.carins.web.dto.BulkClaimsResponse;
+import com.example.carins.web.dto.CarFilter;
+import com.example.carins.web.dto.CarPage;
+import com.example.carins.web.dto.ClaimRowError;
+import com.example.carins.web.dto.HistoryPage;
+import com.example.carins.web.dto.InsuranceClaimDto;
+import com.example.carins.web.dto.InsuranceValidityCheck;
 
+import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
 
 @RestController
 @RequestMapping("/api")
 public class CarController {
 
+    static final int DEFAULT_PAGE_SIZE = 100;
+    static final int MAX_PAGE_SIZE = 1000;
+    static final int MAX_VALIDITY_CHECKS = 10_000;
+    static final int MAX_BULK_CLAIMS = 10_000;
+    private static final LocalDate MIN_SUPPORTED_DATE = LocalDate.of(1900, 1, 1);
+    private static final LocalDate MAX_SUPPORTED_DATE = LocalDate.of(2100, 12, 31);
+
     private final CarService service;
+    private final CarHistoryService historyService;
+    private final ClaimService claimService;
     private final InsuranceClaimRepository claimRepo;
-    private final InsurancePolicyRepository policyRepo;
+    private final Validator validator;
+    private final DataVersions versions;
+    private final EndpointBulkheads bulkheads;
 
-    public CarController(CarService service, InsuranceClaimRepository claimRepo, InsurancePolicyRepository policyRepo) {
+    public CarController(CarService service, CarHistoryService historyService, ClaimService claimService,
+            InsuranceClaimRepository claimRepo, Validator validator, DataVersions versions,
+            EndpointBulkheads bulkheads) {
         this.service = service;
+        this.historyService = historyService;
+        this.claimService = claimService;
         this.claimRepo = claimRepo;
-        this.policyRepo = policyRepo;
+        this.validator = validator;
+        this.versions = versions;
+        this.bulkheads = bulkheads;
     }
 
     /**
@@ -49,7 +87,7 @@ public class CarController {
                     .findFirst().orElse("Validation error");
             return ResponseEntity.badRequest().body(msg);
         }
-        var carOpt = service.listCars().stream().filter(c -> c.getId().equals(carId)).findFirst();
+        var carOpt = service.findCar(carId);
         if (carOpt.isEmpty()) {
             return ResponseEntity.status(404).body("Car not found");
         }
@@ -63,78 +101,260 @@ public class CarController {
     }
 
     /**
-     * Get the history of a car (claims and policies) Response: [ { "type":
-     * "CLAIM", "date": "2025-09-06", "description": "...", "amount": 1200.50 },
-     * ... ] Returns 404 if carId does not exist
+     * Register many claims for a car at once. Request: [ { "claimDate":
+     * "2025-09-06", "description": "Accident", "amount": 1200.50 }, ... ]
+     * Every row is validated before anything is written: if any row is
+     * invalid the response is 400 with one { "index", "error" } item per bad
+     * row and no claim is created. Otherwise the claims are inserted in JDBC
+     * batches and the response is 201 with their ids in request order.
+     * At most 10000 claims per request.
      */
-    @GetMapping("/cars/{carId}/history")
-    public ResponseEntity<?> getCarHistory(@PathVariable Long carId) {
-        var carOpt = service.listCars().stream().filter(c -> c.getId().equals(carId)).findFirst();
-        if (carOpt.isEmpty()) {
+    @PostMapping("/cars/{carId}/claims/bulk")
+    public ResponseEntity<?> registerClaims(@PathVariable Long carId, @RequestBody List<InsuranceClaimDto> dtos) {
+        if (dtos.isEmpty()) {
+            return ResponseEntity.badRequest().body("No claims given.");
+        }
+        if (dtos.size() > MAX_BULK_CLAIMS) {
+            return ResponseEntity.badRequest().body("Too many claims (max " + MAX_BULK_CLAIMS + ").");
+        }
+        if (!service.carExists(carId)) {
             return ResponseEntity.status(404).body("Car not found");
         }
-        var claims = claimRepo.findByCarIdOrderByClaimDateAsc(carId);
-        var policies = policyRepo.findAll().stream().filter(p -> p.getCar().getId().equals(carId)).toList();
-        java.util.List<java.util.Map<String, Object>> events = new java.util.ArrayList<>();
-        for (var p : policies) {
-            java.util.Map<String, Object> e = new java.util.HashMap<>();
-            e.put("type", "POLICY");
-            e.put("startDate", p.getStartDate());
-            e.put("endDate", p.getEndDate());
-            e.put("provider", p.getProvider());
-            events.add(e);
-        }
-        for (var c : claims) {
-            java.util.Map<String, Object> e = new java.util.HashMap<>();
-            e.put("type", "CLAIM");
-            e.put("date", c.getClaimDate());
-            e.put("description", c.getDescription());
-            e.put("amount", c.getAmount());
-            events.add(e);
-        }
-        events.sort(java.util.Comparator.comparing(e -> e.containsKey("date") ? (java.time.LocalDate) e.get("date") : (java.time.LocalDate) e.get("startDate")));
-        return ResponseEntity.ok(events);
+        List<ClaimRowError> errors = new ArrayList<>();
+        for (int i = 0; i < dtos.size(); i++) {
+            InsuranceClaimDto dto = dtos.get(i);
+            if (dto == null) {
+                errors.add(new ClaimRowError(i, "Claim is required"));
+                continue;
+            }
+            Set<ConstraintViolation<InsuranceClaimDto>> violations = validator.validate(dto);
+            if (!violations.isEmpty()) {
+                String msg = violations.stream()
+                        .map(ConstraintViolation::getMessage)
+                        .sorted()
+                        .collect(Collectors.joining("; "));
+                errors.add(new ClaimRowError(i, msg));
+            }
+        }
+        if (!errors.isEmpty()) {
+            return ResponseEntity.badRequest().body(errors);
+        }
+        List<Long> ids = claimService.registerClaims(carId, dtos);
+        return ResponseEntity.status(201).body(new BulkClaimsResponse(carId, ids.size(), ids));
+    }
+
+    /**
+     * Get the history of a car (policies and claims) in chronological order.
+     * Response: [ { "type": "POLICY", "policyId": 2, "startDate": "2025-01-01",
+     * "endDate": "2025-12-31", "provider": "..." }, { "type": "CLAIM",
+     * "claimId": 5, "date": "2025-09-06", "description": "...", "amount":
+     * 1200.50 }, ... ] Optional "from"/"to" restrict the range (inclusive,
+     * ISO dates). Page size defaults to 100 and is capped at 1000; when more
+     * events exist, a Link rel="next" header carries the "after" cursor.
+     * Returns 404 if carId does not exist, 400 for a bad date or cursor.
+     * Carries an ETag that changes with any write to the car, its policies or
+     * claims; a matching If-None-Match gets 304 without querying, unless the car
+     * does not exist. The queries
+     * run on the history bulkhead: 503 with Retry-After when it is saturated
+     * or the request times out.
+     */
+    @GetMapping("/cars/{carId}/history")
+    public CompletableFuture<ResponseEntity<?>> getCarHistory(@PathVariable Long carId,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = versions.carETag(carId);
+        // an unknown car has no current representation, so not even "*" matches it
+        if (matchesETag(ifNoneMatch, etag) && service.carExists(carId)) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build());
+        }
+        if (limit < 1) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body("Limit must be positive."));
+        }
+        LocalDate fromDate;
+        LocalDate toDate;
+        try {
+            fromDate = parseOptionalDate(from);
+            toDate = parseOptionalDate(to);
+        } catch (IllegalArgumentException ex) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(ex.getMessage()));
+        }
+        // the request is not bound to the worker thread: capture its URI here
+        UriComponentsBuilder self = ServletUriComponentsBuilder.fromCurrentRequest();
+        return bulkheads.history().submit(() -> {
+            if (!service.carExists(carId)) {
+                return ResponseEntity.status(404).body("Car not found");
+            }
+            HistoryPage page;
+            try {
+                page = historyService.getHistory(carId, fromDate, toDate, after, Math.min(limit, MAX_PAGE_SIZE));
+            } catch (IllegalArgumentException ex) {
+                return ResponseEntity.badRequest().body(ex.getMessage());
+            }
+            var response = ResponseEntity.ok().eTag(etag);
+            if (page.nextCursor() != null) {
+                response.header(HttpHeaders.LINK, nextLink(self, page.nextCursor()));
+            }
+            return response.body(page.events());
+        });
     }
 
+    /**
+     * List cars with their owners, one page at a time, ordered by id. Optional
+     * filters: make, model, year, ownerId. Pass the "after" cursor from the
+     * Link rel="next" header to get the following page; the header is absent
+     * on the last page. Page size defaults to 100 and is capped at 1000.
+     * Carries an ETag that changes with any car or owner write; a matching
+     * If-None-Match gets 304 without querying.
+     */
     @GetMapping("/cars")
-    public List<CarDto> getCars() {
-        return service.listCars().stream().map(this::toDto).toList();
+    public ResponseEntity<?> getCars(@RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit,
+            @RequestParam(required = false) String make,
+            @RequestParam(required = false) String model,
+            @RequestParam(required = false) Integer year,
+            @RequestParam(required = false) Long ownerId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (limit < 1) {
+            return ResponseEntity.badRequest().body("Limit must be positive.");
+        }
+        String etag = versions.fleetETag();
+        if (matchesETag(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        CarPage page = service.findCars(new CarFilter(make, model, year, ownerId), after, Math.min(limit, MAX_PAGE_SIZE));
+        var response = ResponseEntity.ok().eTag(etag);
+        if (page.nextCursor() != null) {
+            response.header(HttpHeaders.LINK, nextLink(ServletUriComponentsBuilder.fromCurrentRequest(), page.nextCursor()));
+        }
+        return response.body(page.items());
     }
 
+    /**
+     * Check whether a car has an active policy on a date. Runs on the validity
+     * bulkhead, separate from history, so slow history reads cannot delay it;
+     * 503 with Retry-After when the bulkhead is saturated or times out.
+     */
     @GetMapping("/cars/{carId}/insurance-valid")
-    public ResponseEntity<?> isInsuranceValid(@PathVariable Long carId, @RequestParam String date) {
-        // Validate car existence
-        var carOpt = service.listCars().stream().filter(c -> c.getId().equals(carId)).findFirst();
-        if (carOpt.isEmpty()) {
-            return ResponseEntity.status(404).body("Car not found");
+    public CompletableFuture<ResponseEntity<?>> isInsuranceValid(@PathVariable Long carId, @RequestParam String date) {
+        return bulkheads.validity().submit(() -> {
+            // Validate car existence
+            if (!service.carExists(carId)) {
+                return ResponseEntity.status(404).body("Car not found");
+            }
+
+            // Validate date format and reject impossible dates
+            LocalDate d;
+            try {
+                d = parseValidityDate(date);
+            } catch (IllegalArgumentException ex) {
+                return ResponseEntity.badRequest().body(ex.getMessage());
+            }
+
+            boolean valid = service.isInsuranceValid(carId, d);
+            return ResponseEntity.ok(new InsuranceValidityResponse(carId, d.toString(), valid));
+        });
+    }
+
+    /**
+     * Check insurance validity for many (carId, date) pairs at once. Request: [ {
+     * "carId": 1, "date": "2025-06-01" }, ... ] Response: one item per check, in
+     * request order, with the status the single-check endpoint would have
+     * returned: 200 with "valid", 404 for an unknown car, 400 for a bad date
+     * or a null check. At most 10000 checks per request.
+     */
+    @PostMapping("/cars/insurance-valid")
+    public ResponseEntity<?> areInsurancesValid(@RequestBody List<InsuranceValidityCheck> checks) {
+        if (checks.size() > MAX_VALIDITY_CHECKS) {
+            return ResponseEntity.badRequest().body("Too many checks (max " + MAX_VALIDITY_CHECKS + ").");
+        }
+        List<Long> carIds = checks.stream().filter(Objects::nonNull)
+                .map(InsuranceValidityCheck::carId).filter(Objects::nonNull).toList();
+        Set<Long> existing = service.findExistingCarIds(carIds);
+        Map<Long, PolicyIntervals> coverage = service.policyIntervalsFor(existing);
+
+        List<InsuranceValidityBatchItem> results = new ArrayList<>(checks.size());
+        for (InsuranceValidityCheck check : checks) {
+            if (check == null) {
+                results.add(InsuranceValidityBatchItem.error(null, null, 400, "Check is required"));
+                continue;
+            }
+            Long carId = check.carId();
+            if (carId == null || !existing.contains(carId)) {
+                results.add(InsuranceValidityBatchItem.error(carId, check.date(), 404, "Car not found"));
+                continue;
+            }
+            LocalDate d;
+            try {
+                d = parseValidityDate(check.date());
+            } catch (IllegalArgumentException ex) {
+                results.add(InsuranceValidityBatchItem.error(carId, check.date(), 400, ex.getMessage()));
+                continue;
+            }
+            boolean valid = coverage.getOrDefault(carId, PolicyIntervals.EMPTY).covers(d);
+            results.add(new InsuranceValidityBatchItem(carId, d.toString(), 200, valid, null));
+        }
+        return ResponseEntity.ok(results);
+    }
+
+    /** If-None-Match uses weak comparison, so W/"x" matches "x"; "*" matches any current representation. */
+    private static boolean matchesETag(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            String t = tag.strip();
+            if (t.startsWith("W/")) {
+                t = t.substring(2);
+            }
+            if (t.equals("*") || t.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String nextLink(UriComponentsBuilder current, Object cursor) {
+        String next = current
+                .replaceQueryParam("after", cursor)
+                .toUriString();
+        return "<" + next + ">; rel=\"next\"";
+    }
+
+    private static LocalDate parseOptionalDate(String date) {
+        if (date == null) {
+            return null;
         }
+        try {
+            return LocalDate.parse(date);
+        } catch (Exception ex) {
+            throw new IllegalArgumentException("Invalid date format. Use ISO YYYY-MM-DD.");
+        }
+    }
 
-        // Validate date format
+    private static LocalDate parseValidityDate(String date) {
         LocalDate d;
         try {
             d = LocalDate.parse(date);
         } catch (Exception ex) {
-            return ResponseEntity.badRequest().body("Invalid date format. Use ISO YYYY-MM-DD.");
+            throw new IllegalArgumentException("Invalid date format. Use ISO YYYY-MM-DD.");
         }
-
-        // Reject impossible dates
-        if (d.isBefore(LocalDate.of(1900, 1, 1)) || d.isAfter(LocalDate.of(2100, 12, 31))) {
-            return ResponseEntity.badRequest().body("Date out of supported range (1900-01-01 to 2100-12-31).");
+        if (d.isBefore(MIN_SUPPORTED_DATE) || d.isAfter(MAX_SUPPORTED_DATE)) {
+            throw new IllegalArgumentException("Date out of supported range (1900-01-01 to 2100-12-31).");
         }
-
-        boolean valid = service.isInsuranceValid(carId, d);
-        return ResponseEntity.ok(new InsuranceValidityResponse(carId, d.toString(), valid));
+        return d;
     }
 
-    private CarDto toDto(Car c) {
-        var o = c.getOwner();
-        return new CarDto(c.getId(), c.getVin(), c.getMake(), c.getModel(), c.getYearOfManufacture(),
-                o != null ? o.getId() : null,
-                o != null ? o.getName() : null,
-                o != null ? o.getEmail() : null);
+    public record InsuranceValidityResponse(Long carId, String date, boolean valid) {
+
     }
 
-    public record InsuranceValidityResponse(Long carId, String date, boolean valid) {
+    public record InsuranceValidityBatchItem(Long carId, String date, int status, Boolean valid, String error) {
 
+        static InsuranceValidityBatchItem error(Long carId, String date, int status, String error) {
+            return new InsuranceValidityBatchItem(carId, date, status, null, error);
+        }
     }
 }
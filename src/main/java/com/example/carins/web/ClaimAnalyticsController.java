@@ -0,0 +1,53 @@
+package com.example.carins.web;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.carins.service.ClaimAnalytics;
+import com.example.carins.service.ClaimGrouping;
+
+@RestController
+@RequestMapping("/api/analytics")
+public class ClaimAnalyticsController {
+
+    private final ClaimAnalytics analytics;
+
+    public ClaimAnalyticsController(ClaimAnalytics analytics) {
+        this.analytics = analytics;
+    }
+
+    /**
+     * Claim count, total, p50/p90/p99 and maximum amount per car, provider or month,
+     * for claims dated within [from, to] (both optional, ISO dates).
+     */
+    @GetMapping("/claims")
+    public ResponseEntity<?> claimStats(@RequestParam(defaultValue = "car") String groupBy,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to) {
+        ClaimGrouping grouping;
+        try {
+            grouping = ClaimGrouping.valueOf(groupBy.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body("groupBy must be one of: car, provider, month.");
+        }
+        LocalDate fromDate;
+        LocalDate toDate;
+        try {
+            fromDate = from != null ? LocalDate.parse(from) : null;
+            toDate = to != null ? LocalDate.parse(to) : null;
+        } catch (DateTimeParseException ex) {
+            return ResponseEntity.badRequest().body("Invalid date format. Use ISO YYYY-MM-DD.");
+        }
+        if (fromDate != null && toDate != null && toDate.isBefore(fromDate)) {
+            return ResponseEntity.badRequest().body("To date must not be before from date.");
+        }
+        return ResponseEntity.ok(analytics.aggregate(grouping, fromDate, toDate));
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.carins.web;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * One bounded executor per class of read endpoint, so a slow class (history) cannot take the
+ * servlet threads or the workers of a cheap one (validity). The servlet thread only hands the
+ * work over; a full queue answers 503 at once, and work not finished within the class timeout
+ * answers 503 as well and is cancelled, so it stops holding a worker and its database connection
+ * once nobody waits for it. Sizes and timeouts are set under {@code carins.async.<class>.*}; a class with
+ * {@code threads=0} has no executor and runs its work inline on the request thread.
+ */
+@Component
+public class EndpointBulkheads {
+
+    private final Bulkhead validity;
+    private final Bulkhead history;
+
+    public EndpointBulkheads(ObjectProvider<MeterRegistry> meterRegistry,
+            @Value("${carins.async.validity.threads:8}") int validityThreads,
+            @Value("${carins.async.validity.queue-capacity:200}") int validityQueue,
+            @Value("${carins.async.validity.timeout:PT2S}") Duration validityTimeout,
+            @Value("${carins.async.history.threads:4}") int historyThreads,
+            @Value("${carins.async.history.queue-capacity:50}") int historyQueue,
+            @Value("${carins.async.history.timeout:PT10S}") Duration historyTimeout) {
+        MeterRegistry registry = meterRegistry.getIfAvailable(SimpleMeterRegistry::new);
+        this.validity = new Bulkhead("validity", validityThreads, validityQueue, validityTimeout, registry);
+        this.history = new Bulkhead("history", historyThreads, historyQueue, historyTimeout, registry);
+    }
+
+    public Bulkhead validity() {
+        return validity;
+    }
+
+    public Bulkhead history() {
+        return history;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        validity.shutdown();
+        history.shutdown();
+    }
+
+    public static final class Bulkhead {
+
+        private final String name;
+        private final ThreadPoolExecutor executor;
+        private final Duration timeout;
+        private final Counter saturated;
+        private final Counter timedOut;
+
+        Bulkhead(String name, int threads, int queueCapacity, Duration timeout, MeterRegistry registry) {
+            this.name = name;
+            this.timeout = timeout;
+            List<Tag> tags = List.of(Tag.of("endpoint", name));
+            if (threads > 0) {
+                this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                        new ArrayBlockingQueue<>(queueCapacity),
+                        Thread.ofPlatform().name("bulkhead-" + name + "-", 1).daemon().factory(),
+                        new ThreadPoolExecutor.AbortPolicy());
+                new ExecutorServiceMetrics(executor, "carins.bulkhead." + name, tags).bindTo(registry);
+            } else {
+                this.executor = null;
+            }
+            this.saturated = Counter.builder("carins.bulkhead.rejected").tags(tags).tag("reason", "saturated")
+                    .register(registry);
+            this.timedOut = Counter.builder("carins.bulkhead.rejected").tags(tags).tag("reason", "timeout")
+                    .register(registry);
+        }
+
+        /**
+         * Runs {@code work} on this bulkhead's executor. When the timeout fires, work still queued
+         * is skipped and work already running is interrupted; its result is discarded either way.
+         */
+        public CompletableFuture<ResponseEntity<?>> submit(Supplier<ResponseEntity<?>> work) {
+            if (executor == null) {
+                try {
+                    return CompletableFuture.completedFuture(work.get());
+                } catch (RuntimeException ex) {
+                    return CompletableFuture.failedFuture(ex);
+                }
+            }
+            CompletableFuture<ResponseEntity<?>> result = new CompletableFuture<>();
+            FutureTask<Void> task = new FutureTask<>(() -> {
+                if (result.isDone()) {
+                    return;
+                }
+                try {
+                    result.complete(work.get());
+                } catch (Throwable ex) {
+                    result.completeExceptionally(ex);
+                }
+            }, null);
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException ex) {
+                saturated.increment();
+                return CompletableFuture.completedFuture(unavailable("Too many " + name + " requests, retry later."));
+            }
+            return result.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS).exceptionally(ex -> {
+                if (ex instanceof TimeoutException) {
+                    task.cancel(true);
+                    timedOut.increment();
+                    return unavailable("The " + name + " request timed out, retry later.");
+                }
+                throw ex instanceof CompletionException completion ? completion : new CompletionException(ex);
+            });
+        }
+
+        void shutdown() {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+
+        private static ResponseEntity<?> unavailable(String message) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(message);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.carins.web;
+
+import java.io.IOException;
+import java.time.LocalDate;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.carins.service.FleetExportService;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+@RestController
+@RequestMapping("/api")
+public class FleetExportController {
+
+    static final String NDJSON = "application/x-ndjson";
+
+    private final FleetExportService exportService;
+
+    public FleetExportController(FleetExportService exportService) {
+        this.exportService = exportService;
+    }
+
+    /**
+     * Export the whole fleet as newline-delimited JSON, one car per line:
+     * { "carId": 1, "vin": "...", "make": "...", "model": "...", "year": 2018,
+     * "owner": { "id": 1, "name": "...", "email": "..." }, "policy": { "id": 2,
+     * "provider": "...", "startDate": "...", "endDate": "..." } } "policy" is
+     * the policy active on "date" (default today) or null.
+     */
+    @GetMapping("/cars/export")
+    public void exportFleet(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            HttpServletResponse response) throws IOException {
+        response.setContentType(NDJSON);
+        response.setCharacterEncoding("UTF-8");
+        exportService.exportFleet(date != null ? date : LocalDate.now(), response.getOutputStream());
+    }
+}
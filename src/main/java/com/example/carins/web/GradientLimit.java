@@ -0,0 +1,76 @@
+package com.example.carins.web;
+
+/**
+ * Concurrency limit that follows observed latency, in the style of Netflix's Gradient2 limit.
+ * Latency samples are averaged over windows of {@code windowSamples} requests; each window's
+ * average is compared with a long-term average. While they match, the limit creeps up by a
+ * fraction of its square root per window (room for a small queue); once short-term latency rises
+ * above {@link #TOLERANCE} times the long-term one, requests are queueing somewhere (usually on
+ * the database) and the limit shrinks in proportion, by up to a tenth per window. Windows in which
+ * fewer than half the permitted requests were in flight are ignored: latency measured while the
+ * server is idle says nothing about how many requests it can take.
+ */
+final class GradientLimit {
+
+    /** How far short-term latency may exceed the long-term average before the limit shrinks. */
+    static final double TOLERANCE = 1.5;
+    /** Windows the long-term average spans. */
+    private static final int LONG_WINDOW = 100;
+    /** Weight of a window's new estimate against the current limit. */
+    private static final double SMOOTHING = 0.2;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final int windowSamples;
+
+    private volatile double estimate;
+    private double longRtt;
+    private double windowRttSum;
+    private int windowCount;
+    private int windowMaxInflight;
+
+    GradientLimit(int initialLimit, int minLimit, int maxLimit, int windowSamples) {
+        if (minLimit < 1 || maxLimit < minLimit || windowSamples < 1) {
+            throw new IllegalArgumentException("Need 1 <= min <= max and at least one sample per window.");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.windowSamples = windowSamples;
+        this.estimate = Math.clamp(initialLimit, minLimit, maxLimit);
+    }
+
+    int limit() {
+        return (int) estimate;
+    }
+
+    /** Records one finished request: its latency and how many requests were in flight when it started. */
+    synchronized void onSample(long rttNanos, int inflight) {
+        windowRttSum += rttNanos;
+        windowMaxInflight = Math.max(windowMaxInflight, inflight);
+        if (++windowCount < windowSamples) {
+            return;
+        }
+        double shortRtt = Math.max(1, windowRttSum / windowCount);
+        int maxInflight = windowMaxInflight;
+        windowRttSum = 0;
+        windowCount = 0;
+        windowMaxInflight = 0;
+        update(shortRtt, maxInflight);
+    }
+
+    private void update(double shortRtt, int inflight) {
+        longRtt = longRtt == 0 ? shortRtt : longRtt + (shortRtt - longRtt) / LONG_WINDOW;
+        // after a long slow spell, let the baseline come back down faster than the average alone would
+        if (longRtt / shortRtt > 2) {
+            longRtt *= 0.95;
+        }
+        double current = estimate;
+        if (inflight < current / 2) {
+            return;
+        }
+        double gradient = Math.clamp(TOLERANCE * longRtt / shortRtt, 0.5, 1.0);
+        double next = current * gradient + Math.sqrt(current);
+        next = current * (1 - SMOOTHING) + next * SMOOTHING;
+        estimate = Math.clamp(next, minLimit, maxLimit);
+    }
+}
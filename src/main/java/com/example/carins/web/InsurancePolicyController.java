@@ -1,5 +1,10 @@
 package com.example.carins.web;
 
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -13,8 +18,13 @@ import com.example.carins.model.Car;
 import com.example.carins.model.InsurancePolicy;
 import com.example.carins.repo.CarRepository;
 import com.example.carins.repo.InsurancePolicyRepository;
+import com.example.carins.service.PolicyChangedEvent;
+import com.example.carins.service.PolicyImportService;
+import com.example.carins.service.PolicyOverlapException;
+import com.example.carins.service.PolicyService;
 import com.example.carins.web.dto.InsurancePolicyDto;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 
 @RestController
@@ -23,12 +33,23 @@ public class InsurancePolicyController {
 
     private final InsurancePolicyRepository policyRepo;
     private final CarRepository carRepo;
+    private final ApplicationEventPublisher events;
+    private final PolicyService policyService;
+    private final PolicyImportService importService;
 
-    public InsurancePolicyController(InsurancePolicyRepository policyRepo, CarRepository carRepo) {
+    public InsurancePolicyController(InsurancePolicyRepository policyRepo, CarRepository carRepo,
+            ApplicationEventPublisher events, PolicyService policyService, PolicyImportService importService) {
         this.policyRepo = policyRepo;
         this.carRepo = carRepo;
+        this.events = events;
+        this.policyService = policyService;
+        this.importService = importService;
     }
 
+    /**
+     * Create a policy. 400 for validation errors or an unknown car, 409 when the
+     * car already has a policy active on any day of [startDate, endDate].
+     */
     @PostMapping
     public ResponseEntity<?> createPolicy(@Valid @RequestBody InsurancePolicyDto dto, BindingResult bindingResult) {
         if (bindingResult.hasErrors()) {
@@ -38,15 +59,24 @@ public class InsurancePolicyController {
                     .orElse("Validation error");
             return ResponseEntity.badRequest().body(msg);
         }
-        Car car = carRepo.findById(dto.getCarId()).orElse(null);
+        if (dto.getEndDate().isBefore(dto.getStartDate())) {
+            return ResponseEntity.badRequest().body("End date must not be before start date.");
+        }
+        Car car = carRepo.findWithOwnerById(dto.getCarId()).orElse(null);
         if (car == null) {
             return ResponseEntity.badRequest().body("Car not found");
         }
-        InsurancePolicy policy = new InsurancePolicy(car, dto.getProvider(), dto.getStartDate(), dto.getEndDate());
-        policyRepo.save(policy);
+        InsurancePolicy policy;
+        try {
+            policy = policyService.createPolicy(car, dto.getProvider(), dto.getStartDate(), dto.getEndDate());
+        } catch (PolicyOverlapException ex) {
+            return ResponseEntity.status(409).body(ex.getMessage());
+        }
+        events.publishEvent(PolicyChangedEvent.created(policy));
         return ResponseEntity.ok(policy);
     }
 
+    /** Update a policy; same rules as create, 404 for an unknown policy. */
     @PutMapping("/{id}")
     public ResponseEntity<?> updatePolicy(@PathVariable Long id, @Valid @RequestBody InsurancePolicyDto dto, BindingResult bindingResult) {
         if (bindingResult.hasErrors()) {
@@ -56,19 +86,39 @@ public class InsurancePolicyController {
                     .orElse("Validation error");
             return ResponseEntity.badRequest().body(msg);
         }
+        if (dto.getEndDate().isBefore(dto.getStartDate())) {
+            return ResponseEntity.badRequest().body("End date must not be before start date.");
+        }
         InsurancePolicy policy = policyRepo.findById(id).orElse(null);
         if (policy == null) {
             return ResponseEntity.notFound().build();
         }
-        Car car = carRepo.findById(dto.getCarId()).orElse(null);
+        Car car = carRepo.findWithOwnerById(dto.getCarId()).orElse(null);
         if (car == null) {
             return ResponseEntity.badRequest().body("Car not found");
         }
-        policy.setCar(car);
-        policy.setProvider(dto.getProvider());
-        policy.setStartDate(dto.getStartDate());
-        policy.setEndDate(dto.getEndDate());
-        policyRepo.save(policy);
-        return ResponseEntity.ok(policy);
+        PolicyChangedEvent change;
+        try {
+            change = policyService.updatePolicy(policy, car, dto.getProvider(), dto.getStartDate(), dto.getEndDate());
+        } catch (PolicyOverlapException ex) {
+            return ResponseEntity.status(409).body(ex.getMessage());
+        }
+        events.publishEvent(change);
+        return ResponseEntity.ok(change.policy());
+    }
+
+    /**
+     * Import policies from a CSV body (text/csv, UTF-8) with columns
+     * carId,provider,startDate,endDate and an optional header line. The body is
+     * streamed in chunks; valid rows are inserted, rows with errors, unknown
+     * cars or overlapping an existing or earlier row's period are rejected.
+     * Response: { "rowsRead", "imported", "rejected", "rejections": [ { "line",
+     * "error" } ], "rejectionsTruncated" }
+     */
+    @PostMapping(path = "/import", consumes = { "text/csv", "text/plain" })
+    public ResponseEntity<?> importPolicies(HttpServletRequest request) throws IOException {
+        try (var reader = new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8)) {
+            return ResponseEntity.ok(importService.importCsv(reader));
+        }
     }
 }
@@ -0,0 +1,6 @@
+package com.example.carins.web.dto;
+
+import java.util.List;
+
+/** Result of a bulk claim upload: the ids of the created claims, in request order. */
+public record BulkClaimsResponse(Long carId, int created, List<Long> claimIds) {}
@@ -0,0 +1,7 @@
+package com.example.carins.web.dto;
+
+/** Optional equality filters for listing cars; {@code null} fields are not applied. */
+public record CarFilter(String make, String model, Integer year, Long ownerId) {
+
+    public static final CarFilter NONE = new CarFilter(null, null, null, null);
+}
@@ -0,0 +1,6 @@
+package com.example.carins.web.dto;
+
+import java.util.List;
+
+/** One page of cars ordered by id; {@code nextCursor} is the id to continue after, or {@code null} on the last page. */
+public record CarPage(List<CarDto> items, Long nextCursor) {}
@@ -0,0 +1,9 @@
+package com.example.carins.web.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/** Claim statistics over [from, to] (either bound optional), one entry per group that has claims, in key order. */
+public record ClaimAnalyticsReport(String groupBy, LocalDate from, LocalDate to, long claims, BigDecimal total,
+                                   List<ClaimGroupStats> groups) {}
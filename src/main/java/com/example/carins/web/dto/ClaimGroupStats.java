@@ -0,0 +1,11 @@
+package com.example.carins.web.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Claims of one group within the requested range: how many, their total, nearest-rank percentiles
+ * and the largest amount. {@code key} is the car id, the provider ({@code null} for claims made
+ * while the car had no active policy) or the month as yyyy-MM.
+ */
+public record ClaimGroupStats(String key, long claims, BigDecimal total,
+                              BigDecimal p50, BigDecimal p90, BigDecimal p99, BigDecimal max) {}
@@ -0,0 +1,32 @@
+package com.example.carins.web.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+@JsonPropertyOrder({"type"})
+public record ClaimHistoryEvent(Long claimId, LocalDate date, String description, BigDecimal amount) implements HistoryEvent {
+
+    @Override
+    @JsonProperty("type")
+    public String type() {
+        return "CLAIM";
+    }
+
+    @Override
+    public LocalDate eventDate() {
+        return date;
+    }
+
+    @Override
+    public Long eventId() {
+        return claimId;
+    }
+
+    @Override
+    public int typeOrder() {
+        return 1;
+    }
+}
@@ -0,0 +1,4 @@
+package com.example.carins.web.dto;
+
+/** A rejected row of a bulk claim upload: its zero-based position in the request and why it was rejected. */
+public record ClaimRowError(int index, String error) {}
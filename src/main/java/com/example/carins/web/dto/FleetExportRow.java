@@ -0,0 +1,11 @@
+package com.example.carins.web.dto;
+
+import java.time.LocalDate;
+
+/**
+ * One line of the fleet export: a car, its owner and the policy active on the export date.
+ * Policy fields are {@code null} when the car is uninsured on that date.
+ */
+public record FleetExportRow(Long carId, String vin, String make, String model, int year,
+        Long ownerId, String ownerName, String ownerEmail,
+        Long policyId, String provider, LocalDate policyStartDate, LocalDate policyEndDate) {}
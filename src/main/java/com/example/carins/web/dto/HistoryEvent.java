@@ -0,0 +1,22 @@
+package com.example.carins.web.dto;
+
+import java.time.LocalDate;
+
+/**
+ * One entry of a car's chronological history. Serialized with a "type" discriminator
+ * ("POLICY" or "CLAIM") followed by the fields of the concrete event.
+ */
+public sealed interface HistoryEvent permits PolicyHistoryEvent, ClaimHistoryEvent {
+
+    /** Discriminator written as the "type" property. */
+    String type();
+
+    /** Date the event is placed at on the timeline. */
+    LocalDate eventDate();
+
+    /** Id of the underlying policy or claim; breaks ties between events of the same type and date. */
+    Long eventId();
+
+    /** Position among events on the same date: policies come before claims. */
+    int typeOrder();
+}
@@ -0,0 +1,6 @@
+package com.example.carins.web.dto;
+
+import java.util.List;
+
+/** One page of a car's history; {@code nextCursor} is an opaque token for the next page, or {@code null} on the last one. */
+public record HistoryPage(List<HistoryEvent> events, String nextCursor) {}
@@ -0,0 +1,4 @@
+package com.example.carins.web.dto;
+
+/** One (carId, date) pair of a batch insurance-validity request; the date is an ISO {@code YYYY-MM-DD} string. */
+public record InsuranceValidityCheck(Long carId, String date) {}
@@ -0,0 +1,31 @@
+package com.example.carins.web.dto;
+
+import java.time.LocalDate;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+@JsonPropertyOrder({"type"})
+public record PolicyHistoryEvent(Long policyId, LocalDate startDate, LocalDate endDate, String provider) implements HistoryEvent {
+
+    @Override
+    @JsonProperty("type")
+    public String type() {
+        return "POLICY";
+    }
+
+    @Override
+    public LocalDate eventDate() {
+        return startDate;
+    }
+
+    @Override
+    public Long eventId() {
+        return policyId;
+    }
+
+    @Override
+    public int typeOrder() {
+        return 0;
+    }
+}
@@ -0,0 +1,4 @@
+package com.example.carins.web.dto;
+
+/** A CSV row rejected by a bulk policy import: its one-based line number in the file and why it was rejected. */
+public record PolicyImportRejection(long line, String error) {}
@@ -0,0 +1,11 @@
+package com.example.carins.web.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk policy import. {@code rejections} lists at most the first
+ * {@code carins.import.max-reported-rejections} rejected rows, in line order;
+ * {@code rejected} always counts all of them.
+ */
+public record PolicyImportReport(long rowsRead, long imported, long rejected,
+                                 List<PolicyImportRejection> rejections, boolean rejectionsTruncated) {}
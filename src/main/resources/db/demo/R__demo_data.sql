@@ -0,0 +1,19 @@
+-- Demo owners, cars and policies; leave classpath:db/demo out of spring.flyway.locations to start empty.
+-- Repeatable: Flyway reruns it after the versioned migrations whenever it changes, so every statement
+-- must be safe to apply to a database that already holds these rows and later ones.
+
+MERGE INTO owner (id, name, email) KEY (id) VALUES (1, 'Ana Pop', 'ana.pop@example.com');
+MERGE INTO owner (id, name, email) KEY (id) VALUES (2, 'Bogdan Ionescu', 'bogdan.ionescu@example.com');
+
+MERGE INTO car (id, vin, make, model, year_of_manufacture, owner_id) KEY (id) VALUES (1, 'VIN12345', 'Dacia', 'Logan', 2018, 1);
+MERGE INTO car (id, vin, make, model, year_of_manufacture, owner_id) KEY (id) VALUES (2, 'VIN67890', 'VW', 'Golf', 2021, 2);
+
+MERGE INTO insurancepolicy (id, car_id, provider, start_date, end_date) KEY (id) VALUES (1, 1, 'Allianz', DATE '2024-01-01', DATE '2024-12-31');
+MERGE INTO insurancepolicy (id, car_id, provider, start_date, end_date) KEY (id) VALUES (2, 1, 'Groupama', DATE '2025-01-01', DATE '2026-01-01');
+MERGE INTO insurancepolicy (id, car_id, provider, start_date, end_date) KEY (id) VALUES (3, 2, 'Allianz', DATE '2025-03-01', DATE '2025-09-30');
+
+-- explicit ids above do not advance the identity columns; restart past the highest id in use
+ALTER TABLE owner ALTER COLUMN id RESTART WITH (SELECT COALESCE(MAX(id), 0) + 1 FROM owner);
+ALTER TABLE car ALTER COLUMN id RESTART WITH (SELECT COALESCE(MAX(id), 0) + 1 FROM car);
+-- policies use a pooled sequence: the next block handed out starts after the highest id (501..1000 when empty)
+ALTER SEQUENCE insurancepolicy_seq RESTART WITH (SELECT GREATEST(1000, COALESCE(MAX(id), 0) + 500) FROM insurancepolicy);
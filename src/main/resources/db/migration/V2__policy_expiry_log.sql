@@ -0,0 +1,20 @@
+-- The expiry logger remembers which (policy, end date) pairs it has logged instead of walking a single
+-- (end_date, id) high-water mark, which missed policies whose end date was moved back behind the mark.
+
+CREATE TABLE policy_expiry_log (
+    policy_id BIGINT NOT NULL,
+    end_date DATE NOT NULL,
+    PRIMARY KEY (policy_id)
+);
+
+-- pruning drops entries older than the look-back window
+CREATE INDEX idx_policy_expiry_log_end_date ON policy_expiry_log (end_date);
+
+-- everything up to the old mark has been logged; entries outside the window are pruned on the first run
+INSERT INTO policy_expiry_log (policy_id, end_date)
+SELECT p.id, p.end_date
+FROM insurancepolicy p JOIN job_checkpoint c ON c.name = 'policy-expiry-logger'
+WHERE p.end_date >= DATEADD(DAY, -366, CURRENT_DATE)
+  AND (p.end_date < c.last_date OR (p.end_date = c.last_date AND p.id <= c.last_id));
+
+DROP TABLE job_checkpoint;
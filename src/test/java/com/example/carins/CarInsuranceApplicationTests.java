@@ -1,24 +1,402 @@
 package com.example.carins;
 
+import com.example.carins.model.Car;
+import com.example.carins.repo.CarRepository;
+import com.example.carins.repo.OwnerRepository;
+import com.example.carins.service.CarHistoryService;
 import com.example.carins.service.CarService;
+import com.example.carins.service.ClaimAnalytics;
+import com.example.carins.service.ClaimGrouping;
+import com.example.carins.service.ClaimService;
+import com.example.carins.service.DataVersions;
+import com.example.carins.service.FleetExportService;
+import com.example.carins.service.PolicyImportService;
+import com.example.carins.service.PolicyOverlapException;
+import com.example.carins.service.PolicyService;
+import com.example.carins.repo.InsurancePolicyRepository;
+import com.example.carins.repo.PolicyPeriod;
+import com.example.carins.web.AdaptiveConcurrencyLimitFilter;
+import com.example.carins.web.dto.CarFilter;
+import com.example.carins.web.dto.ClaimAnalyticsReport;
+import com.example.carins.web.dto.ClaimGroupStats;
+import com.example.carins.web.dto.InsuranceClaimDto;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
 
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
-@SpringBootTest
+@SpringBootTest(properties = { "carins.analytics.max-staleness=PT0S", "carins.analytics.split-rows=64" })
+@AutoConfigureObservability(tracing = false)
+@AutoConfigureMockMvc
+@ExtendWith(DeleteCommittedRows.class)
 class CarInsuranceApplicationTests {
 
     @Autowired
     CarService service;
 
+    @Autowired
+    FleetExportService exportService;
+
+    @Autowired
+    CarHistoryService historyService;
+
+    @Autowired
+    CarRepository carRepository;
+
+    @Autowired
+    OwnerRepository ownerRepository;
+
+    @Autowired
+    PrometheusMeterRegistry prometheus;
+
+    @Autowired
+    ClaimService claimService;
+
+    @Autowired
+    PolicyImportService importService;
+
+    @Autowired
+    PolicyService policyService;
+
+    @Autowired
+    InsurancePolicyRepository policyRepository;
+
+    @Autowired
+    DataVersions versions;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    ClaimAnalytics claimAnalytics;
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    ObjectProvider<AdaptiveConcurrencyLimitFilter> concurrencyLimit;
+
+    @Test
+    void adaptiveConcurrencyLimitIsOptIn() {
+        assertNull(concurrencyLimit.getIfAvailable());
+    }
+
+    @Test
+    void probesReportUpOnceStarted() throws Exception {
+        mvc.perform(get("/actuator/health/liveness")).andExpect(status().isOk());
+        mvc.perform(get("/actuator/health/readiness"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("UP"));
+    }
+
+    @Test
+    void writeResponsesSerializeCarWithOwner() throws Exception {
+        mvc.perform(post("/api/cars/1/claims").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"claimDate\":\"2025-03-01\",\"description\":\"Scratch\",\"amount\":120.00}"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.car.id").value(1))
+                .andExpect(jsonPath("$.car.owner.name").isNotEmpty());
+        mvc.perform(post("/api/policies").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"carId\":1,\"provider\":\"Allianz\",\"startDate\":\"2190-01-01\",\"endDate\":\"2190-01-01\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.car.owner.name").isNotEmpty());
+    }
+
     @Test
     void insuranceValidityBasic() {
         assertTrue(service.isInsuranceValid(1L, LocalDate.parse("2024-06-01")));
         assertTrue(service.isInsuranceValid(1L, LocalDate.parse("2025-06-01")));
         assertFalse(service.isInsuranceValid(2L, LocalDate.parse("2025-02-01")));
     }
+
+    @Test
+    void batchLookupsMatchSingleChecks() {
+        assertEquals(Set.of(1L, 2L), service.findExistingCarIds(List.of(1L, 2L, 999L)));
+        var coverage = service.policyIntervalsFor(List.of(1L, 2L));
+        assertTrue(coverage.get(1L).covers(LocalDate.parse("2025-06-01")));
+        assertFalse(coverage.get(2L).covers(LocalDate.parse("2025-02-01")));
+    }
+
+    @Test
+    void carLookupSeesNewCars() {
+        assertTrue(service.carExists(1L));
+        assertFalse(service.carExists(999_999L));
+
+        Car car = carRepository.save(new Car("VIN-LOOKUP-1", "Skoda", "Octavia", 2020, ownerRepository.getReferenceById(1L)));
+        assertTrue(service.carExists(car.getId()));
+        assertTrue(service.findCar(car.getId()).isPresent());
+    }
+
+    @Test
+    void carPagesFollowKeysetCursor() {
+        var first = service.findCars(CarFilter.NONE, null, 1);
+        assertEquals(1, first.items().size());
+        assertEquals(1L, first.items().get(0).id());
+        assertEquals("Ana Pop", first.items().get(0).ownerName());
+        assertEquals(1L, first.nextCursor());
+
+        var second = service.findCars(CarFilter.NONE, first.nextCursor(), 1);
+        assertEquals(2L, second.items().get(0).id());
+
+        var filtered = service.findCars(new CarFilter("VW", "Golf", 2021, 2L), null, 10);
+        assertEquals(1, filtered.items().size());
+        assertNull(filtered.nextCursor());
+    }
+
+    @Test
+    void exportWritesOneLinePerCarWithActivePolicy() throws Exception {
+        var out = new ByteArrayOutputStream();
+        long written = exportService.exportFleet(LocalDate.parse("2025-06-01"), out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(written, lines.length);
+        assertTrue(lines[0].startsWith("{\"carId\":1,\"vin\":\"VIN12345\""));
+        assertTrue(lines[0].contains("\"policy\":{\"id\":2,\"provider\":\"Groupama\""));
+        assertTrue(lines[1].contains("\"owner\":{\"id\":2,\"name\":\"Bogdan Ionescu\""));
+        assertTrue(lines[1].contains("\"provider\":\"Allianz\""));
+    }
+
+    @Test
+    void historyPagesThroughPolicies() {
+        var first = historyService.getHistory(1L, null, null, null, 1);
+        assertEquals(1, first.events().size());
+        assertEquals(LocalDate.parse("2024-01-01"), first.events().get(0).eventDate());
+
+        var second = historyService.getHistory(1L, null, null, first.nextCursor(), 1);
+        assertEquals(LocalDate.parse("2025-01-01"), second.events().get(0).eventDate());
+
+        var ranged = historyService.getHistory(1L, LocalDate.parse("2025-01-01"), null, null, 10);
+        assertEquals(1, ranged.events().size());
+        assertNull(ranged.nextCursor());
+    }
+
+    @Test
+    void repositoryAndHibernateMetricsAreScraped() {
+        service.isInsuranceValid(1L, LocalDate.parse("2025-06-01"));
+
+        String scrape = prometheus.scrape();
+        assertTrue(scrape.contains("spring_data_repository_invocations_seconds_bucket"));
+        assertTrue(scrape.contains("method=\"existsActiveOnDate\""));
+        assertTrue(scrape.contains("hibernate_statements_total"));
+        assertTrue(scrape.contains("carins_expiry_run_seconds_count"));
+    }
+
+    @Test
+    void bulkClaimsAreInsertedInFewRoundTrips() {
+        List<InsuranceClaimDto> dtos = new ArrayList<>();
+        for (int i = 0; i < 1200; i++) {
+            var dto = new InsuranceClaimDto();
+            dto.setClaimDate(LocalDate.parse("2025-01-01").plusDays(i % 300));
+            dto.setDescription("Bulk claim " + i);
+            dto.setAmount(BigDecimal.valueOf(100 + i));
+            dtos.add(dto);
+        }
+        Statistics stats = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        stats.clear();
+
+        List<Long> ids = claimService.registerClaims(2L, dtos);
+
+        assertEquals(1200, ids.size());
+        assertEquals(1200, ids.stream().distinct().count());
+        assertEquals(1200, stats.getEntityInsertCount());
+        // 3 insert batches of 500 plus 3 pooled sequence calls, instead of 1200 single-row inserts
+        assertTrue(stats.getPrepareStatementCount() <= 10, "statements: " + stats.getPrepareStatementCount());
+    }
+
+    @Test
+    void policyImportRejectsOverlapsAndUnknownCars() throws Exception {
+        String csv = """
+                carId,provider,startDate,endDate
+                2,Generali,2027-01-01,2027-06-30
+                2,Generali,2027-06-30,2027-12-31
+                1,Allianz,2025-12-01,2026-03-01
+                999,Allianz,2027-01-01,2027-12-31
+                2,Allianz,2027-07-01,not-a-date
+                2,Generali,2028-01-01,2028-12-31
+                """;
+
+        var report = importService.importCsv(new StringReader(csv));
+
+        assertEquals(6, report.rowsRead());
+        assertEquals(2, report.imported());
+        assertEquals(4, report.rejected());
+        assertEquals(List.of(3L, 4L, 5L, 6L), report.rejections().stream().map(r -> r.line()).toList());
+        assertEquals("Overlaps the policy on line 2", report.rejections().get(0).error());
+        assertEquals("Overlaps an existing policy of car 1", report.rejections().get(1).error());
+        assertTrue(service.isInsuranceValid(2L, LocalDate.parse("2028-06-01")));
+        assertFalse(service.isInsuranceValid(2L, LocalDate.parse("2027-09-01")));
+    }
+
+    @Test
+    void concurrentPolicyWritesForOneCarNeverOverlap() throws Exception {
+        Car car = carRepository.save(new Car("VIN-STRESS-1", "Skoda", "Fabia", 2022, ownerRepository.getReferenceById(1L)));
+        // 12 monthly periods, each attempted by every thread, plus a year-long period that clashes with all of them
+        List<LocalDate[]> periods = new ArrayList<>();
+        for (int m = 1; m <= 12; m++) {
+            LocalDate start = LocalDate.of(2030, m, 1);
+            periods.add(new LocalDate[] { start, start.plusMonths(1).minusDays(1) });
+        }
+        periods.add(new LocalDate[] { LocalDate.of(2030, 3, 15), LocalDate.of(2031, 3, 14) });
+
+        int threads = 16;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger created = new AtomicInteger();
+        AtomicInteger conflicts = new AtomicInteger();
+        try {
+            for (int t = 0; t < threads; t++) {
+                List<LocalDate[]> order = new ArrayList<>(periods);
+                Collections.shuffle(order);
+                pool.submit(() -> {
+                    start.await();
+                    for (LocalDate[] p : order) {
+                        try {
+                            policyService.createPolicy(car, "Stress", p[0], p[1]);
+                            created.incrementAndGet();
+                        } catch (PolicyOverlapException ex) {
+                            conflicts.incrementAndGet();
+                        }
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+            pool.shutdown();
+            assertTrue(pool.awaitTermination(60, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdownNow();
+        }
+
+        List<PolicyPeriod> stored = policyRepository.findPeriodsByCarId(car.getId());
+        assertEquals(created.get(), stored.size());
+        assertEquals(threads * periods.size(), created.get() + conflicts.get());
+        for (int i = 1; i < stored.size(); i++) {
+            assertTrue(stored.get(i).startDate().isAfter(stored.get(i - 1).endDate()),
+                    "policies " + stored.get(i - 1).policyId() + " and " + stored.get(i).policyId() + " overlap");
+        }
+    }
+
+    @Test
+    void entityWritesChangeTheETagsTheyAffect() {
+        String fleet = versions.fleetETag();
+        String car1 = versions.carETag(1L);
+
+        var dto = new InsuranceClaimDto();
+        dto.setClaimDate(LocalDate.parse("2025-05-01"));
+        dto.setDescription("Scratch");
+        dto.setAmount(BigDecimal.TEN);
+        claimService.registerClaims(1L, List.of(dto));
+
+        assertNotEquals(car1, versions.carETag(1L));
+        assertEquals(fleet, versions.fleetETag());
+
+        carRepository.save(new Car("VIN-ETAG-0001", "Ford", "Focus", 2019, ownerRepository.getReferenceById(1L)));
+        assertNotEquals(fleet, versions.fleetETag());
+    }
+
+    @Test
+    void claimAnalyticsMatchJpqlReference() {
+        List<InsuranceClaimDto> dtos = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            var dto = new InsuranceClaimDto();
+            dto.setClaimDate(LocalDate.parse("2024-10-01").plusDays(i * 7 % 360));
+            dto.setDescription("Analytics claim " + i);
+            dto.setAmount(BigDecimal.valueOf(1_000 + i * 37 % 9_000, 2));
+            dtos.add(dto);
+        }
+        claimService.registerClaims(1L, dtos.subList(0, 250));
+        claimService.registerClaims(2L, dtos.subList(250, 400));
+
+        LocalDate from = LocalDate.parse("2024-12-15");
+        LocalDate to = LocalDate.parse("2025-06-30");
+        String month = "extract(year from c.claimDate) * 100 + extract(month from c.claimDate)";
+        String coveringPolicy = "left join InsurancePolicy p on p.car = c.car "
+                + "and p.startDate <= c.claimDate and p.endDate >= c.claimDate ";
+        assertReportMatches(claimAnalytics.aggregate(ClaimGrouping.CAR, from, to),
+                referenceStats("c.car.id", "", from, to), key -> String.valueOf(key));
+        assertReportMatches(claimAnalytics.aggregate(ClaimGrouping.PROVIDER, from, to),
+                referenceStats("p.provider", coveringPolicy, from, to), key -> (String) key);
+        assertReportMatches(claimAnalytics.aggregate(ClaimGrouping.MONTH, from, to),
+                referenceStats(month, "", from, to),
+                key -> String.format("%d-%02d", ((Number) key).intValue() / 100, ((Number) key).intValue() % 100));
+    }
+
+    /** Count, total and max per group from a JPQL group-by; p50/p90/p99 by nearest rank over ordered amounts. */
+    private Map<Object, ClaimGroupStats> referenceStats(String key, String join, LocalDate from, LocalDate to) {
+        EntityManager em = entityManagerFactory.createEntityManager();
+        try {
+            String where = "from InsuranceClaim c " + join + "where c.claimDate between :from and :to ";
+            Map<Object, List<BigDecimal>> amounts = new HashMap<>();
+            em.createQuery("select " + key + ", c.amount " + where + "order by c.amount", Object[].class)
+                    .setParameter("from", from).setParameter("to", to).getResultList()
+                    .forEach(row -> amounts.computeIfAbsent(row[0], k -> new ArrayList<>()).add((BigDecimal) row[1]));
+            Map<Object, ClaimGroupStats> stats = new HashMap<>();
+            em.createQuery("select " + key + ", count(c), sum(c.amount), max(c.amount) " + where + "group by " + key,
+                    Object[].class).setParameter("from", from).setParameter("to", to).getResultList()
+                    .forEach(row -> {
+                        List<BigDecimal> sorted = amounts.get(row[0]);
+                        stats.put(row[0], new ClaimGroupStats(null, (Long) row[1], (BigDecimal) row[2],
+                                nearestRank(sorted, 50), nearestRank(sorted, 90), nearestRank(sorted, 99),
+                                (BigDecimal) row[3]));
+                    });
+            return stats;
+        } finally {
+            em.close();
+        }
+    }
+
+    private static BigDecimal nearestRank(List<BigDecimal> sorted, int percent) {
+        return sorted.get((int) Math.ceil(percent * sorted.size() / 100.0) - 1);
+    }
+
+    private static void assertReportMatches(ClaimAnalyticsReport report, Map<Object, ClaimGroupStats> reference,
+            java.util.function.Function<Object, String> keyOf) {
+        assertEquals(reference.size(), report.groups().size());
+        assertEquals(reference.values().stream().mapToLong(ClaimGroupStats::claims).sum(), report.claims());
+        for (var entry : reference.entrySet()) {
+            ClaimGroupStats expected = entry.getValue();
+            ClaimGroupStats actual = report.groups().stream()
+                    .filter(g -> java.util.Objects.equals(g.key(), keyOf.apply(entry.getKey())))
+                    .findFirst().orElseThrow(() -> new AssertionError("missing group " + entry.getKey()));
+            assertEquals(expected.claims(), actual.claims(), actual.key());
+            assertEquals(0, expected.total().compareTo(actual.total()), actual.key());
+            assertEquals(0, expected.p50().compareTo(actual.p50()), actual.key());
+            assertEquals(0, expected.p90().compareTo(actual.p90()), actual.key());
+            assertEquals(0, expected.p99().compareTo(actual.p99()), actual.key());
+            assertEquals(0, expected.max().compareTo(actual.max()), actual.key());
+        }
+    }
 }
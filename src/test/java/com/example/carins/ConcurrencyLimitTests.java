@@ -0,0 +1,34 @@
+package com.example.carins;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/** The application with the opt-in adaptive concurrency limit in front of /api. */
+@SpringBootTest(properties = "carins.concurrency-limit.enabled=true")
+@AutoConfigureMockMvc
+class ConcurrencyLimitTests {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Test
+    void apiRequestsTakeAndReturnAPermit() throws Exception {
+        assertEquals(20, meterRegistry.get("carins.concurrency.limit").gauge().value());
+
+        mockMvc.perform(get("/api/cars")).andExpect(status().isOk());
+
+        assertEquals(0, meterRegistry.get("carins.concurrency.inflight").tag("partition", "default").gauge().value());
+        assertEquals(0, meterRegistry.get("carins.concurrency.rejected").tag("partition", "default").counter().count());
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.carins;
+
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.carins.model.Car;
+import com.example.carins.model.InsuranceClaim;
+import com.example.carins.model.InsurancePolicy;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Application tests commit through the services, so they cannot roll back. This extension
+ * records the highest claim, policy and car ids before each test and afterwards deletes every
+ * newer row through JPA, so the entity listeners keep ETags, car lookups, the history projection
+ * and the analytics snapshot in step, and the next test starts from the demo data again.
+ */
+class DeleteCommittedRows implements BeforeEachCallback, AfterEachCallback {
+
+    private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(DeleteCommittedRows.class);
+
+    @Override
+    public void beforeEach(ExtensionContext context) {
+        JdbcTemplate jdbc = SpringExtension.getApplicationContext(context).getBean(JdbcTemplate.class);
+        ExtensionContext.Store store = context.getStore(NAMESPACE);
+        store.put(InsuranceClaim.class, maxId(jdbc, "insuranceclaim"));
+        store.put(InsurancePolicy.class, maxId(jdbc, "insurancepolicy"));
+        store.put(Car.class, maxId(jdbc, "car"));
+    }
+
+    @Override
+    public void afterEach(ExtensionContext context) {
+        ApplicationContext app = SpringExtension.getApplicationContext(context);
+        EntityManager entityManager = app.getBean(EntityManager.class);
+        ExtensionContext.Store store = context.getStore(NAMESPACE);
+        new TransactionTemplate(app.getBean(PlatformTransactionManager.class)).executeWithoutResult(tx -> {
+            // claims and policies before the cars they point at
+            for (Class<?> entity : new Class<?>[] { InsuranceClaim.class, InsurancePolicy.class, Car.class }) {
+                entityManager.createQuery("select e from " + entity.getSimpleName() + " e where e.id > :id", entity)
+                        .setParameter("id", store.get(entity, Long.class))
+                        .getResultList()
+                        .forEach(entityManager::remove);
+            }
+        });
+    }
+
+    private static long maxId(JdbcTemplate jdbc, String table) {
+        return jdbc.queryForObject("select coalesce(max(id), 0) from " + table, Long.class);
+    }
+}
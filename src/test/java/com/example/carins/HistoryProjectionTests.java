@@ -0,0 +1,48 @@
+package com.example.carins;
+
+import com.example.carins.service.CarHistoryProjection;
+import com.example.carins.service.CarHistoryService;
+import com.example.carins.service.ClaimService;
+import com.example.carins.web.dto.InsuranceClaimDto;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** The application serving car history from the opt-in in-memory projection. */
+@SpringBootTest(properties = "carins.history-projection.enabled=true")
+@ExtendWith(DeleteCommittedRows.class)
+class HistoryProjectionTests {
+
+    @Autowired
+    CarHistoryProjection historyProjection;
+
+    @Autowired
+    CarHistoryService historyService;
+
+    @Autowired
+    ClaimService claimService;
+
+    @Test
+    void historyProjectionSeesCommittedWrites() {
+        assertTrue(historyProjection.isReady());
+        LocalDate day = LocalDate.parse("2019-03-14");
+        assertTrue(historyService.getHistory(2L, day, day, null, 10).events().isEmpty());
+
+        var dto = new InsuranceClaimDto();
+        dto.setClaimDate(day);
+        dto.setDescription("Hail damage");
+        dto.setAmount(BigDecimal.valueOf(750));
+        List<Long> ids = claimService.registerClaims(2L, List.of(dto));
+
+        var page = historyService.getHistory(2L, day, day, null, 10);
+        assertEquals(1, page.events().size());
+        assertEquals(ids.get(0), page.events().get(0).eventId());
+    }
+}
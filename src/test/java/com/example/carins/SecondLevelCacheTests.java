@@ -0,0 +1,50 @@
+package com.example.carins;
+
+import com.example.carins.model.Car;
+import com.example.carins.repo.CarRepository;
+import com.example.carins.repo.OwnerRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** The application with the opt-in Hibernate second-level and query cache. */
+@SpringBootTest(properties = "carins.l2-cache.enabled=true")
+@ExtendWith(DeleteCommittedRows.class)
+class SecondLevelCacheTests {
+
+    @Autowired
+    CarRepository carRepository;
+
+    @Autowired
+    OwnerRepository ownerRepository;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void carReadsAreServedFromSecondLevelCacheAndInvalidatedOnWrite() {
+        Car car = carRepository.save(new Car("VIN-L2-0001", "Skoda", "Kodiaq", 2023, ownerRepository.getReferenceById(2L)));
+        Statistics stats = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        stats.clear();
+
+        assertEquals("Skoda", carRepository.findByVin("VIN-L2-0001").orElseThrow().getMake());
+        long statements = stats.getPrepareStatementCount();
+        // served from the query cache and the Car region without touching the database
+        assertEquals("Skoda", carRepository.findByVin("VIN-L2-0001").orElseThrow().getMake());
+        assertTrue(carRepository.findById(car.getId()).isPresent());
+        assertEquals(statements, stats.getPrepareStatementCount());
+        assertEquals(1, stats.getQueryCacheHitCount());
+        assertTrue(stats.getSecondLevelCacheHitCount() >= 1);
+
+        car.setMake("Seat");
+        carRepository.save(car);
+        assertEquals("Seat", carRepository.findByVin("VIN-L2-0001").orElseThrow().getMake());
+        assertEquals("Seat", carRepository.findById(car.getId()).orElseThrow().getMake());
+    }
+}
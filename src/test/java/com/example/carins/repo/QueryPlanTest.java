@@ -0,0 +1,99 @@
+package com.example.carins.repo;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Runs H2 {@code EXPLAIN} on the SQL Hibernate generates for the hot repository queries, against
+ * the schema built by the Flyway migrations, and fails when a plan falls back to a table scan.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.example.carins.repo.QueryPlanTest$SqlRecorder")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class QueryPlanTest {
+
+    private static final LocalDate DATE = LocalDate.parse("2025-06-01");
+
+    @Autowired
+    InsurancePolicyRepository policyRepository;
+
+    @Autowired
+    InsuranceClaimRepository claimRepository;
+
+    @Autowired
+    CarRepository carRepository;
+
+    @Autowired
+    JdbcTemplate jdbc;
+
+    @BeforeEach
+    void clearRecordedSql() {
+        SqlRecorder.statements.clear();
+    }
+
+    @Test
+    void existsActiveOnDateSeeksThePolicyIndex() {
+        policyRepository.existsActiveOnDate(1L, DATE);
+
+        assertThat(plan(1L, DATE, DATE)).contains("IDX_INSURANCEPOLICY_CAR_DATES");
+    }
+
+    @Test
+    void findByCarIdSeeksByCar() {
+        policyRepository.findByCarId(1L);
+
+        assertThat(plan(1L)).contains("CAR_ID = ?1");
+    }
+
+    @Test
+    void claimsOfACarAreSoughtByCar() {
+        claimRepository.findByCarIdOrderByClaimDateAsc(1L);
+
+        assertThat(plan(1L)).contains("CAR_ID = ?1");
+    }
+
+    @Test
+    void findByVinSeeksTheUniqueIndex() {
+        carRepository.findByVin("VIN12345");
+
+        assertThat(plan("VIN12345")).contains("UK_CAR_VIN");
+    }
+
+    @Test
+    void unloggedExpiriesAreSoughtByEndDate() {
+        policyRepository.findUnloggedExpiredBetween(DATE.minusDays(30), DATE, Limit.of(500));
+
+        assertThat(plan(DATE.minusDays(30), DATE, 500)).contains("IDX_INSURANCEPOLICY_END_DATE");
+    }
+
+    /** EXPLAIN of the last statement Hibernate ran, with {@code args} bound in order; never a table scan. */
+    private String plan(Object... args) {
+        assertThat(SqlRecorder.statements).isNotEmpty();
+        String sql = SqlRecorder.statements.get(SqlRecorder.statements.size() - 1);
+        String plan = jdbc.queryForObject("EXPLAIN " + sql, String.class, args);
+        assertThat(plan).as(sql).doesNotContainIgnoringCase("tableScan");
+        return plan.toUpperCase();
+    }
+
+    public static class SqlRecorder implements StatementInspector {
+
+        static final List<String> statements = new ArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.carins.repo;
+
+import java.time.Duration;
+
+import javax.cache.CacheManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+
+import com.example.carins.model.Car;
+
+class SecondLevelCacheConfigurationTest {
+
+    @Test
+    void eachContextGetsItsOwnCacheManager() {
+        SecondLevelCacheConfiguration configuration = new SecondLevelCacheConfiguration();
+        try (CacheManager first = configuration.secondLevelCacheManager(10, Duration.ofMinutes(1));
+                CacheManager second = configuration.secondLevelCacheManager(10, Duration.ofMinutes(1))) {
+            assertThat(second).isNotSameAs(first);
+            first.getCache(Car.class.getName()).put(1L, "cached");
+            assertThat(second.getCache(Car.class.getName()).containsKey(1L)).isFalse();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.carins.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.example.carins.repo.InsuranceClaimRepository;
+import com.example.carins.repo.InsurancePolicyRepository;
+import com.example.carins.web.dto.ClaimHistoryEvent;
+import com.example.carins.web.dto.HistoryEvent;
+
+class CarHistoryProjectionTest {
+
+    private final InsurancePolicyRepository policyRepo = Mockito.mock(InsurancePolicyRepository.class);
+    private final InsuranceClaimRepository claimRepo = Mockito.mock(InsuranceClaimRepository.class);
+    private final ManualScheduler rebuilds = new ManualScheduler();
+    private final CarHistoryProjection projection = new CarHistoryProjection(policyRepo, claimRepo,
+            Mockito.mock(PlatformTransactionManager.class), true, rebuilds);
+
+    private static ClaimHistoryEvent claim(long id) {
+        return new ClaimHistoryEvent(id, LocalDate.parse("2025-01-01"), "Accident", BigDecimal.TEN);
+    }
+
+    private void claimsOfCar1(List<ClaimHistoryEvent> claims) {
+        Mockito.when(claimRepo.findHistory(eq(1L), isNull(), isNull(), isNull(), isNull(), eq(Limit.unlimited())))
+                .thenReturn(claims);
+    }
+
+    private List<Long> eventIds(Long carId) {
+        return projection.timeline(carId).events(null, null, null, 10).stream().map(HistoryEvent::eventId).toList();
+    }
+
+    @Test
+    void changedCarIsReadWithTheQueriesUntilItsRebuildIsInstalled() {
+        projection.load();
+        claimsOfCar1(List.of(claim(7)));
+
+        projection.onCarDataChanged(new CarDataChangedEvent(Set.of(1L)));
+        assertThat(projection.timeline(1L)).isNull();
+        Mockito.verify(claimRepo, Mockito.never()).findHistory(any(), any(), any(), any(), any(), any());
+
+        rebuilds.runNext();
+        assertThat(eventIds(1L)).containsExactly(7L);
+        assertThat(rebuilds.pending()).isZero();
+    }
+
+    @Test
+    void rebuildOvertakenByALaterWriteIsDiscarded() {
+        projection.load();
+        claimsOfCar1(List.of(claim(7), claim(8)));
+        Mockito.when(policyRepo.findHistory(eq(1L), isNull(), isNull(), isNull(), isNull(), eq(Limit.unlimited())))
+                .thenAnswer(invocation -> {
+                    // the second write commits while the first rebuild is reading
+                    projection.onCarDataChanged(new CarDataChangedEvent(Set.of(1L)));
+                    return List.of();
+                })
+                .thenReturn(List.of());
+
+        projection.onCarDataChanged(new CarDataChangedEvent(Set.of(1L)));
+        rebuilds.runNext();
+        assertThat(projection.timeline(1L)).isNull();
+
+        rebuilds.runNext();
+        assertThat(eventIds(1L)).containsExactly(7L, 8L);
+    }
+
+    @Test
+    void failedRebuildIsRetriedThenLeavesTheCarOnTheQueries() {
+        projection.load();
+        Mockito.when(claimRepo.findHistory(eq(1L), any(), any(), any(), any(), any()))
+                .thenThrow(new DataAccessResourceFailureException("pool exhausted"));
+
+        projection.onCarDataChanged(new CarDataChangedEvent(Set.of(1L)));
+        for (int attempt = 0; attempt < CarHistoryProjection.MAX_ATTEMPTS; attempt++) {
+            assertThat(rebuilds.pending()).isEqualTo(1);
+            rebuilds.runNext();
+        }
+
+        assertThat(rebuilds.pending()).isZero();
+        assertThat(projection.timeline(1L)).isNull();
+        Mockito.verify(claimRepo, Mockito.times(CarHistoryProjection.MAX_ATTEMPTS))
+                .findHistory(eq(1L), any(), any(), any(), any(), any());
+    }
+
+    /** Queues scheduled rebuilds so a test runs them one at a time, delays ignored. */
+    static final class ManualScheduler extends ScheduledThreadPoolExecutor {
+        private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+        ManualScheduler() {
+            super(0);
+        }
+
+        @Override
+        public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+            tasks.add(command);
+            return null;
+        }
+
+        int pending() {
+            return tasks.size();
+        }
+
+        void runNext() {
+            tasks.remove().run();
+        }
+
+        void runAll() {
+            while (!tasks.isEmpty()) {
+                runNext();
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.carins.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.example.carins.repo.InsuranceClaimRepository;
+import com.example.carins.repo.InsurancePolicyRepository;
+import com.example.carins.web.dto.ClaimHistoryEvent;
+import com.example.carins.web.dto.HistoryEvent;
+import com.example.carins.web.dto.HistoryPage;
+import com.example.carins.web.dto.PolicyHistoryEvent;
+
+class CarHistoryServiceTest {
+
+    private final InsurancePolicyRepository policyRepo = Mockito.mock(InsurancePolicyRepository.class);
+    private final InsuranceClaimRepository claimRepo = Mockito.mock(InsuranceClaimRepository.class);
+    private final CarHistoryProjection projection = Mockito.mock(CarHistoryProjection.class);
+    private final CarHistoryService service = new CarHistoryService(policyRepo, claimRepo, projection);
+
+    private static PolicyHistoryEvent policy(long id, String start) {
+        return new PolicyHistoryEvent(id, LocalDate.parse(start), LocalDate.parse(start).plusYears(1), "Allianz");
+    }
+
+    private static ClaimHistoryEvent claim(long id, String date) {
+        return new ClaimHistoryEvent(id, LocalDate.parse(date), "Accident", BigDecimal.TEN);
+    }
+
+    @Test
+    void mergesOrderedSourcesWithPoliciesFirstOnSameDate() {
+        List<HistoryEvent> merged = CarHistoryService.merge(
+                List.of(policy(1, "2024-01-01"), policy(2, "2025-01-01")),
+                List.of(claim(7, "2024-06-01"), claim(8, "2025-01-01"), claim(9, "2025-02-01")),
+                10);
+
+        assertThat(merged).extracting(HistoryEvent::eventId).containsExactly(1L, 7L, 2L, 8L, 9L);
+    }
+
+    @Test
+    void cursorResumesAfterLastEventOfPage() {
+        Mockito.when(policyRepo.findHistory(eq(1L), isNull(), isNull(), isNull(), isNull(), any()))
+                .thenReturn(List.of(policy(1, "2024-01-01"), policy(2, "2025-01-01")));
+        Mockito.when(claimRepo.findHistory(eq(1L), isNull(), isNull(), isNull(), isNull(), any()))
+                .thenReturn(List.of(claim(7, "2024-06-01")));
+
+        HistoryPage first = service.getHistory(1L, null, null, null, 2);
+        assertThat(first.events()).extracting(HistoryEvent::eventId).containsExactly(1L, 7L);
+        assertThat(first.nextCursor()).isNotNull();
+
+        // last event was a claim on 2024-06-01: policies strictly after that date, claims after id 7 on it
+        Mockito.when(policyRepo.findHistory(eq(1L), isNull(), isNull(), eq(LocalDate.parse("2024-06-01")), eq(Long.MAX_VALUE), any()))
+                .thenReturn(List.of(policy(2, "2025-01-01")));
+        Mockito.when(claimRepo.findHistory(eq(1L), isNull(), isNull(), eq(LocalDate.parse("2024-06-01")), eq(7L), any()))
+                .thenReturn(List.of());
+
+        HistoryPage second = service.getHistory(1L, null, null, first.nextCursor(), 2);
+        assertThat(second.events()).extracting(HistoryEvent::eventId).containsExactly(2L);
+        assertThat(second.nextCursor()).isNull();
+    }
+
+    @Test
+    void projectionPagesFollowTheSameRangeAndCursorRules() {
+        Mockito.when(policyRepo.findHistory(eq(1L), isNull(), isNull(), isNull(), isNull(), eq(Limit.unlimited())))
+                .thenReturn(List.of(policy(1, "2024-01-01"), policy(2, "2025-01-01")));
+        Mockito.when(claimRepo.findHistory(eq(1L), isNull(), isNull(), isNull(), isNull(), eq(Limit.unlimited())))
+                .thenReturn(List.of(claim(7, "2024-06-01"), claim(8, "2025-01-01"), claim(9, "2025-02-01")));
+        var rebuilds = new CarHistoryProjectionTest.ManualScheduler();
+        CarHistoryProjection enabled = new CarHistoryProjection(policyRepo, claimRepo,
+                Mockito.mock(PlatformTransactionManager.class), true, rebuilds);
+        enabled.load();
+        enabled.onCarDataChanged(new CarDataChangedEvent(Set.of(1L)));
+        rebuilds.runAll();
+        CarHistoryService projected = new CarHistoryService(policyRepo, claimRepo, enabled);
+
+        HistoryPage first = projected.getHistory(1L, null, null, null, 2);
+        assertThat(first.events()).extracting(HistoryEvent::eventId).containsExactly(1L, 7L);
+        HistoryPage second = projected.getHistory(1L, null, null, first.nextCursor(), 2);
+        assertThat(second.events()).extracting(HistoryEvent::eventId).containsExactly(2L, 8L);
+        HistoryPage third = projected.getHistory(1L, null, null, second.nextCursor(), 2);
+        assertThat(third.events()).extracting(HistoryEvent::eventId).containsExactly(9L);
+        assertThat(third.nextCursor()).isNull();
+
+        HistoryPage ranged = projected.getHistory(1L, LocalDate.parse("2024-06-01"), LocalDate.parse("2025-01-01"), null, 10);
+        assertThat(ranged.events()).extracting(HistoryEvent::eventId).containsExactly(7L, 2L, 8L);
+        assertThat(projected.getHistory(2L, null, null, null, 10).events()).isEmpty();
+    }
+
+    @Test
+    void rejectsMalformedCursor() {
+        assertThatThrownBy(() -> service.getHistory(1L, null, null, "not-a-cursor", 10))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid history cursor.");
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.carins.service;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+
+class CarLockStripesTest {
+
+    @Test
+    void writesToCarsOnDifferentStripesRunInParallel() throws Exception {
+        CarLockStripes locks = new CarLockStripes(64);
+        long otherCar = 2;
+        while (locks.stripeOf(otherCar) == locks.stripeOf(1L)) {
+            otherCar++;
+        }
+        long carB = otherCar;
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> first = pool.submit(() -> locks.withLock(1L, () -> {
+                holding.countDown();
+                await(release);
+                return null;
+            }));
+            holding.await();
+            // car 1's stripe is held, yet car B's write completes
+            Future<Boolean> second = pool.submit(() -> locks.withLock(carB, () -> true));
+            assertThat(second.get(5, TimeUnit.SECONDS)).isTrue();
+            release.countDown();
+            first.get(5, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void writesToTheSameCarAreSerialised() throws Exception {
+        CarLockStripes locks = new CarLockStripes(4);
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean firstDone = new AtomicBoolean();
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> first = pool.submit(() -> locks.withLocks(List.of(7L, 8L), () -> {
+                holding.countDown();
+                await(release);
+                firstDone.set(true);
+                return null;
+            }));
+            holding.await();
+            // the second write may only run once the first has finished
+            Future<Boolean> second = pool.submit(() -> locks.withLock(7L, firstDone::get));
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (!locks.hasWaiters(7L)) {
+                assertThat(System.nanoTime()).as("second writer never queued").isLessThan(deadline);
+                Thread.onSpinWait();
+            }
+            assertThat(second.isDone()).isFalse();
+            release.countDown();
+            assertThat(second.get(5, TimeUnit.SECONDS)).isTrue();
+            first.get(5, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
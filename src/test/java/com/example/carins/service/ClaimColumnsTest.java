@@ -0,0 +1,91 @@
+package com.example.carins.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+
+import com.example.carins.repo.ClaimFactRow;
+
+class ClaimColumnsTest {
+
+    private static ClaimFactRow fact(long claimId, long carId, String date, String amount, String provider) {
+        return new ClaimFactRow(claimId, carId, LocalDate.parse(date), new BigDecimal(amount), provider);
+    }
+
+    private static long day(String date) {
+        return LocalDate.parse(date).toEpochDay();
+    }
+
+    @Test
+    void groupsByCarProviderAndMonthWithinRange() {
+        ClaimColumns columns = ClaimColumns.of(List.of(
+                fact(1, 7, "2025-01-10", "100.00", "Allianz"),
+                fact(2, 3, "2025-01-20", "50.25", null),
+                fact(3, 7, "2025-02-05", "10.00", "Groupama"),
+                // the same claim again under an overlapping legacy policy: counted once
+                fact(3, 7, "2025-02-05", "10.00", "Allianz"),
+                fact(4, 7, "2025-04-01", "30.00", "Groupama")), 64);
+
+        assertThat(columns.size()).isEqualTo(4);
+
+        ClaimColumns.Aggregation byCar = columns.aggregate(ClaimGrouping.CAR, day("2025-01-01"), day("2025-02-28"));
+        assertThat(columns.key(ClaimGrouping.CAR, 0)).isEqualTo("3");
+        assertThat(byCar.count).containsExactly(1, 2);
+        assertThat(byCar.total).containsExactly(5025, 11000);
+        assertThat(byCar.p50).containsExactly(5025, 1000);
+        assertThat(byCar.max).containsExactly(5025, 10000);
+
+        ClaimColumns.Aggregation byProvider = columns.aggregate(ClaimGrouping.PROVIDER, Long.MIN_VALUE, Long.MAX_VALUE);
+        assertThat(columns.key(ClaimGrouping.PROVIDER, 0)).isNull();
+        assertThat(columns.key(ClaimGrouping.PROVIDER, 2)).isEqualTo("Groupama");
+        assertThat(byProvider.count).containsExactly(1, 1, 2);
+
+        ClaimColumns.Aggregation byMonth = columns.aggregate(ClaimGrouping.MONTH, Long.MIN_VALUE, Long.MAX_VALUE);
+        assertThat(columns.key(ClaimGrouping.MONTH, 0)).isEqualTo("2025-01");
+        assertThat(columns.key(ClaimGrouping.MONTH, 3)).isEqualTo("2025-04");
+        assertThat(byMonth.count).containsExactly(2, 1, 0, 1);
+    }
+
+    @Test
+    void percentilesUseNearestRank() {
+        List<ClaimFactRow> facts = new ArrayList<>();
+        for (int i = 1; i <= 200; i++) {
+            facts.add(fact(i, 1, "2025-01-01", i + ".00", "Allianz"));
+        }
+        ClaimColumns.Aggregation all = ClaimColumns.of(facts, 64).aggregate(ClaimGrouping.CAR, Long.MIN_VALUE, Long.MAX_VALUE);
+
+        assertThat(all.p50[0]).isEqualTo(10000);
+        assertThat(all.p90[0]).isEqualTo(18000);
+        assertThat(all.p99[0]).isEqualTo(19800);
+        assertThat(all.max[0]).isEqualTo(20000);
+        assertThat(all.total[0]).isEqualTo(20100 * 100);
+    }
+
+    @Test
+    void forkJoinSplitsMatchASingleScan() {
+        Random random = new Random(42);
+        String[] providers = { null, "Allianz", "Generali", "Groupama" };
+        List<ClaimFactRow> facts = new ArrayList<>();
+        LocalDate date = LocalDate.parse("2023-01-01");
+        for (int i = 1; i <= 5_000; i++) {
+            date = date.plusDays(random.nextInt(2));
+            facts.add(new ClaimFactRow((long) i, 1L + random.nextInt(300), date,
+                    BigDecimal.valueOf(random.nextInt(1_000_000), 2), providers[random.nextInt(providers.length)]));
+        }
+        ClaimColumns split = ClaimColumns.of(facts, 16);
+        ClaimColumns single = ClaimColumns.of(facts, Integer.MAX_VALUE);
+
+        for (ClaimGrouping grouping : ClaimGrouping.values()) {
+            ClaimColumns.Aggregation a = split.aggregate(grouping, day("2023-06-01"), day("2029-01-31"));
+            ClaimColumns.Aggregation b = single.aggregate(grouping, day("2023-06-01"), day("2029-01-31"));
+            assertThat(a.count).containsExactly(b.count);
+            assertThat(a.total).containsExactly(b.total);
+            assertThat(a.p99).containsExactly(b.p99);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.carins.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+class DataVersionsTest {
+
+    private final List<Object> published = new ArrayList<>();
+    private final DataVersions versions = new DataVersions(64, published::add);
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void writesInsideATransactionBumpOnlyAfterCommit() {
+        String carTag = versions.carETag(1L);
+        String fleetTag = versions.fleetETag();
+
+        TransactionSynchronizationManager.initSynchronization();
+        versions.carChanged(1L, true);
+        versions.carChanged(1L, false);
+        assertThat(versions.carETag(1L)).isEqualTo(carTag);
+        assertThat(versions.fleetETag()).isEqualTo(fleetTag);
+        assertThat(published).isEmpty();
+
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+        assertThat(versions.carETag(1L)).isNotEqualTo(carTag);
+        assertThat(versions.fleetETag()).isNotEqualTo(fleetTag);
+        assertThat(published).containsExactly(new CarDataChangedEvent(Set.of(1L)));
+    }
+
+    @Test
+    void readModelsHearOfTheChangeBeforeTheTagMoves() {
+        List<String> tagsSeen = new ArrayList<>();
+        DataVersions[] observed = new DataVersions[1];
+        observed[0] = new DataVersions(64, event -> tagsSeen.add(observed[0].carETag(2L)));
+        String carTag = observed[0].carETag(2L);
+
+        observed[0].carChanged(2L, false);
+
+        assertThat(tagsSeen).containsExactly(carTag);
+        assertThat(observed[0].carETag(2L)).isNotEqualTo(carTag);
+    }
+
+    @Test
+    void failingListenerStillMovesTheTags() {
+        DataVersions failing = new DataVersions(64, event -> {
+            throw new IllegalStateException("listener failed");
+        });
+        String carTag = failing.carETag(4L);
+        String fleetTag = failing.fleetETag();
+
+        TransactionSynchronizationManager.initSynchronization();
+        failing.carChanged(4L, true);
+        assertThatThrownBy(() -> complete(TransactionSynchronization.STATUS_COMMITTED))
+                .isInstanceOf(IllegalStateException.class);
+
+        assertThat(failing.carETag(4L)).isNotEqualTo(carTag);
+        assertThat(failing.fleetETag()).isNotEqualTo(fleetTag);
+    }
+
+    @Test
+    void rolledBackWritesKeepTheTags() {
+        String carTag = versions.carETag(5L);
+
+        TransactionSynchronizationManager.initSynchronization();
+        versions.carChanged(5L, false);
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertThat(versions.carETag(5L)).isEqualTo(carTag);
+        assertThat(published).isEmpty();
+    }
+
+    @Test
+    void writesOutsideATransactionBumpImmediately() {
+        String carTag = versions.carETag(3L);
+        versions.carChanged(3L, false);
+        assertThat(versions.carETag(3L)).isNotEqualTo(carTag).startsWith("\"car-3-");
+    }
+
+    private static void complete(int status) {
+        var synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(s -> s.afterCompletion(status));
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.carins.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import com.example.carins.model.Car;
+import com.example.carins.model.InsurancePolicy;
+import com.example.carins.repo.ExpiredPolicy;
+import com.example.carins.repo.InsurancePolicyRepository;
+
+class ExpiryTimingWheelTest {
+
+    /** Clock whose time only moves when the test says so. */
+    private static final class TestClock extends Clock {
+        private Instant now;
+
+        TestClock(String instant) {
+            this.now = Instant.parse(instant);
+        }
+
+        void set(String instant) {
+            now = Instant.parse(instant);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+
+    private final PolicyExpiryLogger expiryLogger = Mockito.mock(PolicyExpiryLogger.class);
+    private final InsurancePolicyRepository repo = Mockito.mock(InsurancePolicyRepository.class);
+    private final TestClock clock = new TestClock("2025-03-10T12:00:00Z");
+    private final ExpiryTimingWheel wheel = new ExpiryTimingWheel(expiryLogger, repo,
+            Duration.ofMinutes(1), 4096, Duration.ofMinutes(5), 1, clock);
+
+    @Test
+    void firesEachExpiryOnceAfterMidnightPlusDelay() {
+        ExpiredPolicy endsToday = new ExpiredPolicy(1L, 7L, LocalDate.parse("2025-03-10"));
+        Mockito.when(repo.findEndingBetween(LocalDate.parse("2025-03-10"), LocalDate.parse("2025-03-11")))
+                .thenReturn(List.of(endsToday));
+        wheel.start();
+        Mockito.verify(expiryLogger).logExpiredPolicies();
+
+        clock.set("2025-03-11T00:04:00Z");
+        wheel.tick();
+        Mockito.verify(expiryLogger, Mockito.never()).logExpired(anyList());
+
+        clock.set("2025-03-11T00:05:00Z");
+        wheel.tick();
+        Mockito.verify(expiryLogger).logExpired(List.of(endsToday));
+
+        clock.set("2025-03-11T00:06:00Z");
+        wheel.tick();
+        Mockito.verify(expiryLogger, Mockito.times(1)).logExpired(anyList());
+        assertThat(wheel.pendingCount()).isZero();
+    }
+
+    @Test
+    void reschedulesWhenEndDateChanges() {
+        Mockito.when(repo.findEndingBetween(any(), any())).thenReturn(List.of());
+        Mockito.when(repo.findEndingBetween(LocalDate.parse("2025-03-10"), LocalDate.parse("2025-03-11")))
+                .thenReturn(List.of(new ExpiredPolicy(2L, 7L, LocalDate.parse("2025-03-10"))));
+        wheel.start();
+
+        InsurancePolicy policy = new InsurancePolicy(car(7L), "Allianz", LocalDate.parse("2024-03-11"), LocalDate.parse("2025-03-11"));
+        setId(policy, 2L);
+        wheel.onPolicyChanged(new PolicyChangedEvent(policy, 7L, LocalDate.parse("2025-03-10")));
+
+        clock.set("2025-03-11T00:10:00Z");
+        wheel.tick();
+        Mockito.verify(expiryLogger, Mockito.never()).logExpired(anyList());
+
+        clock.set("2025-03-12T00:10:00Z");
+        wheel.tick();
+        Mockito.verify(expiryLogger).logExpired(eq(List.of(new ExpiredPolicy(2L, 7L, LocalDate.parse("2025-03-11")))));
+    }
+
+    @Test
+    void endDateMovedIntoThePastTriggersCatchUp() {
+        Mockito.when(repo.findEndingBetween(any(), any())).thenReturn(List.of());
+        wheel.start();
+
+        InsurancePolicy policy = new InsurancePolicy(car(7L), "Allianz", LocalDate.parse("2024-01-01"), LocalDate.parse("2025-03-01"));
+        setId(policy, 3L);
+        wheel.onPolicyChanged(PolicyChangedEvent.created(policy));
+
+        Mockito.verify(expiryLogger, Mockito.times(2)).logExpiredPolicies();
+        assertThat(wheel.pendingCount()).isZero();
+    }
+
+    private static Car car(long id) {
+        Car car = new Car();
+        setField(Car.class, car, id);
+        return car;
+    }
+
+    private static void setId(InsurancePolicy policy, long id) {
+        setField(InsurancePolicy.class, policy, id);
+    }
+
+    private static void setField(Class<?> type, Object target, long id) {
+        try {
+            var field = type.getDeclaredField("id");
+            field.setAccessible(true);
+            field.set(target, id);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -1,65 +1,141 @@
 package com.example.carins.service;
 
 import java.time.LocalDate;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.eq;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.slf4j.LoggerFactory;
 
-import com.example.carins.model.Car;
-import com.example.carins.model.InsurancePolicy;
+import com.example.carins.model.PolicyExpiryLogEntry;
+import com.example.carins.repo.ExpiredPolicy;
 import com.example.carins.repo.InsurancePolicyRepository;
+import com.example.carins.repo.PolicyExpiryLogRepository;
 
 import ch.qos.logback.classic.Logger;
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.core.read.ListAppender;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 class PolicyExpiryLoggerTest {
 
-    @Test
-    void logsOnceForExpiredPolicy() {
-        // Arrange: mock repository and policy
-        InsurancePolicyRepository repo = Mockito.mock(InsurancePolicyRepository.class);
-        InsurancePolicy policy = new InsurancePolicy();
-        // Set policy ID using reflection
-        try {
-            var field = InsurancePolicy.class.getDeclaredField("id");
-            field.setAccessible(true);
-            field.set(policy, 42L);
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
-        Car car = new Car();
-        // Set car ID using reflection
-        try {
-            var carIdField = Car.class.getDeclaredField("id");
-            carIdField.setAccessible(true);
-            carIdField.set(car, 7L);
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
-        policy.setCar(car);
-        policy.setEndDate(LocalDate.now().minusDays(1)); // expired yesterday
-        Mockito.when(repo.findAll()).thenReturn(List.of(policy));
-
-        PolicyExpiryLogger loggerService = new PolicyExpiryLogger(repo);
-
-        // Attach a ListAppender to capture logs
-        Logger logger = (Logger) LoggerFactory.getLogger(PolicyExpiryLogger.class);
-        ListAppender<ILoggingEvent> appender = new ListAppender<>();
+    private final LocalDate today = LocalDate.now();
+    private final InsurancePolicyRepository repo = Mockito.mock(InsurancePolicyRepository.class);
+    private final PolicyExpiryLogRepository expiryLog = Mockito.mock(PolicyExpiryLogRepository.class);
+    // the expiry log table, and the policies as the database currently holds them
+    private final Map<Long, LocalDate> logged = new HashMap<>();
+    private final List<ExpiredPolicy> policies = new ArrayList<>();
+    private final SimpleMeterRegistry meters = new SimpleMeterRegistry();
+    private final PolicyExpiryLogger loggerService = new PolicyExpiryLogger(repo, expiryLog, meters, Period.ofDays(30));
+    private final Logger logger = (Logger) LoggerFactory.getLogger(PolicyExpiryLogger.class);
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+
+    @BeforeEach
+    void fakeRepositories() {
+        // what the anti-join query returns: expired in [from, today) and not logged for the current end date
+        Mockito.when(repo.findUnloggedExpiredBetween(any(), any(), any())).thenAnswer(inv -> {
+            LocalDate from = inv.getArgument(0);
+            LocalDate to = inv.getArgument(1);
+            return policies.stream()
+                    .filter(p -> !p.endDate().isBefore(from) && p.endDate().isBefore(to))
+                    .filter(p -> !p.endDate().equals(logged.get(p.policyId())))
+                    .toList();
+        });
+        Mockito.when(expiryLog.saveAll(anyIterable())).thenAnswer(inv -> {
+            Iterable<PolicyExpiryLogEntry> entries = inv.getArgument(0);
+            entries.forEach(e -> logged.put(e.getPolicyId(), e.getEndDate()));
+            return entries;
+        });
+        Mockito.when(expiryLog.findAllById(anyIterable())).thenAnswer(inv -> {
+            List<PolicyExpiryLogEntry> found = new ArrayList<>();
+            Iterable<Long> ids = inv.getArgument(0);
+            ids.forEach(id -> {
+                if (logged.containsKey(id)) {
+                    found.add(new PolicyExpiryLogEntry(id, logged.get(id)));
+                }
+            });
+            return found;
+        });
         appender.start();
         logger.addAppender(appender);
+    }
+
+    @AfterEach
+    void detachAppender() {
+        logger.detachAppender(appender);
+    }
+
+    @Test
+    void logsOnceForExpiredPolicy() {
+        LocalDate yesterday = today.minusDays(1);
+        policies.add(new ExpiredPolicy(42L, 7L, yesterday));
 
-        // Act: run the logger twice
         loggerService.logExpiredPolicies(); // Should log
         loggerService.logExpiredPolicies(); // Should NOT log again
 
-        // Assert: only one log entry
-        List<ILoggingEvent> logs = appender.list;
-        assertThat(logs).hasSize(1);
-        assertThat(logs.get(0).getFormattedMessage())
-                .contains("Policy 42 for car 7 expired on " + policy.getEndDate());
+        assertThat(messages()).containsExactly("Policy 42 for car 7 expired on " + yesterday);
+        assertThat(logged).containsEntry(42L, yesterday);
+        Mockito.verify(repo, Mockito.times(2)).findUnloggedExpiredBetween(eq(today.minusDays(30)), eq(today), any());
+        Mockito.verify(expiryLog, Mockito.times(2)).deleteEndedBefore(today.minusDays(30));
+        assertThat(meters.get("carins.expiry.run").tag("trigger", "scan").timer().count()).isEqualTo(2);
+        assertThat(meters.get("carins.expiry.rows.scanned").tag("trigger", "scan").summary().totalAmount()).isEqualTo(1);
+    }
+
+    @Test
+    void logsAgainWhenEndDateMovesBackBehindEarlierExpiries() {
+        policies.add(new ExpiredPolicy(10L, 3L, today.minusDays(2)));
+        policies.add(new ExpiredPolicy(11L, 4L, today.minusDays(1)));
+        loggerService.logExpiredPolicies();
+
+        // policy 11 is edited to have ended before policy 10
+        policies.set(1, new ExpiredPolicy(11L, 4L, today.minusDays(5)));
+        loggerService.logExpiredPolicies();
+
+        assertThat(messages()).containsExactly(
+                "Policy 10 for car 3 expired on " + today.minusDays(2),
+                "Policy 11 for car 4 expired on " + today.minusDays(1),
+                "Policy 11 for car 4 expired on " + today.minusDays(5));
+    }
+
+    @Test
+    void wheelSkipsPoliciesAlreadyLoggedForTheSameEndDate() {
+        LocalDate yesterday = today.minusDays(1);
+        logged.put(1L, yesterday);
+        logged.put(2L, today.minusDays(9));
+
+        loggerService.logExpired(List.of(new ExpiredPolicy(1L, 5L, yesterday), new ExpiredPolicy(2L, 6L, yesterday),
+                new ExpiredPolicy(3L, 7L, yesterday)));
+
+        assertThat(messages()).containsExactly(
+                "Policy 2 for car 6 expired on " + yesterday,
+                "Policy 3 for car 7 expired on " + yesterday);
+        assertThat(logged).containsEntry(2L, yesterday).containsEntry(3L, yesterday);
+        assertThat(meters.get("carins.expiry.rows.scanned").tag("trigger", "wheel").summary().totalAmount()).isEqualTo(3);
+    }
+
+    @Test
+    void defaultLookbackLogsOnlyYesterdaysExpiriesOnAFreshDatabase() {
+        PolicyExpiryLogger oneDay = new PolicyExpiryLogger(repo, expiryLog, meters, Period.ofDays(1));
+        policies.add(new ExpiredPolicy(20L, 8L, today.minusDays(1)));
+        policies.add(new ExpiredPolicy(21L, 9L, today.minusDays(5)));
+
+        oneDay.logExpiredPolicies();
+
+        assertThat(messages()).containsExactly("Policy 20 for car 8 expired on " + today.minusDays(1));
+        Mockito.verify(expiryLog).deleteEndedBefore(today.minusDays(1));
+    }
+
+    private List<String> messages() {
+        return appender.list.stream().map(ILoggingEvent::getFormattedMessage).toList();
     }
 }
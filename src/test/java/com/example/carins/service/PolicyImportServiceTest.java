@@ -0,0 +1,68 @@
+package com.example.carins.service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.Test;
+
+import com.example.carins.repo.PolicyPeriod;
+import com.example.carins.service.PolicyImportService.Row;
+import com.example.carins.web.dto.PolicyImportRejection;
+
+class PolicyImportServiceTest {
+
+    private static Row row(long line, String start, String end) {
+        return new Row(line, 1L, "Allianz", LocalDate.parse(start), LocalDate.parse(end));
+    }
+
+    @Test
+    void sweepKeepsEarliestStartingPolicyOfEachOverlap() {
+        List<Row> rows = new ArrayList<>(List.of(
+                row(2, "2026-06-01", "2026-12-31"),   // overlaps line 3
+                row(3, "2026-01-01", "2026-06-01"),
+                row(4, "2027-01-01", "2027-12-31"),
+                row(5, "2026-07-01", "2026-07-31"))); // inside line 2's period, but line 2 was rejected
+        List<Row> accepted = new ArrayList<>();
+        List<PolicyImportRejection> rejections = new ArrayList<>();
+
+        PolicyImportService.sweep(rows, PolicyIntervals.EMPTY, accepted, rejections);
+
+        assertThat(accepted).extracting(Row::line).containsExactly(3L, 5L, 4L);
+        assertThat(rejections).containsExactly(new PolicyImportRejection(2, "Overlaps the policy on line 3"));
+    }
+
+    @Test
+    void sweepRejectsRowsOverlappingExistingCoverage() {
+        PolicyIntervals existing = PolicyIntervals.of(List.of(
+                new PolicyPeriod(1L, 1L, LocalDate.parse("2025-01-01"), LocalDate.parse("2025-12-31"))));
+        List<Row> rows = new ArrayList<>(List.of(
+                row(2, "2024-06-01", "2025-01-01"),
+                row(3, "2026-01-01", "2026-12-31")));
+        List<Row> accepted = new ArrayList<>();
+        List<PolicyImportRejection> rejections = new ArrayList<>();
+
+        PolicyImportService.sweep(rows, existing, accepted, rejections);
+
+        assertThat(accepted).extracting(Row::line).containsExactly(3L);
+        assertThat(rejections).containsExactly(new PolicyImportRejection(2, "Overlaps an existing policy of car 1"));
+    }
+
+    @Test
+    void parseHandlesQuotedFieldsAndRejectsBadRows() {
+        Row parsed = PolicyImportService.parse(7, "12,\"Allianz, \"\"Premium\"\"\",2026-01-01,2026-12-31");
+        assertThat(parsed).isEqualTo(new Row(7, 12L, "Allianz, \"Premium\"",
+                LocalDate.parse("2026-01-01"), LocalDate.parse("2026-12-31")));
+
+        assertThatThrownBy(() -> PolicyImportService.parse(1, "12,Allianz,2026-01-01"))
+                .hasMessage("Expected 4 columns: carId,provider,startDate,endDate.");
+        assertThatThrownBy(() -> PolicyImportService.parse(1, "12,,2026-01-01,2026-12-31"))
+                .hasMessage("Provider is required");
+        assertThatThrownBy(() -> PolicyImportService.parse(1, "12,Allianz,2026-13-01,2026-12-31"))
+                .hasMessage("Invalid date format. Use ISO YYYY-MM-DD.");
+        assertThatThrownBy(() -> PolicyImportService.parse(1, "12,Allianz,2026-12-31,2026-01-01"))
+                .hasMessage("End date must not be before start date.");
+    }
+}
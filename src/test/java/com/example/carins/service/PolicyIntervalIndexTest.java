@@ -0,0 +1,117 @@
+package com.example.carins.service;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import com.example.carins.model.Car;
+import com.example.carins.model.InsurancePolicy;
+import com.example.carins.repo.InsurancePolicyRepository;
+import com.example.carins.repo.PolicyPeriod;
+
+class PolicyIntervalIndexTest {
+
+    private static PolicyPeriod period(long carId, String start, String end) {
+        return new PolicyPeriod(null, carId, LocalDate.parse(start), end != null ? LocalDate.parse(end) : null);
+    }
+
+    @Test
+    void mergesOverlappingAndAdjacentPeriods() {
+        PolicyIntervals intervals = PolicyIntervals.of(List.of(
+                period(1, "2025-01-01", "2025-12-31"),
+                period(1, "2024-01-01", "2024-12-31"),
+                period(1, "2024-06-01", "2024-07-01"),
+                period(1, "2027-01-01", "2027-06-30")));
+
+        assertThat(intervals.size()).isEqualTo(2);
+        assertThat(intervals.covers(LocalDate.parse("2024-01-01"))).isTrue();
+        assertThat(intervals.covers(LocalDate.parse("2025-12-31"))).isTrue();
+        assertThat(intervals.covers(LocalDate.parse("2026-01-01"))).isFalse();
+        assertThat(intervals.covers(LocalDate.parse("2023-12-31"))).isFalse();
+        assertThat(intervals.covers(LocalDate.parse("2027-03-01"))).isTrue();
+    }
+
+    @Test
+    void openEndedPeriodCoversEverythingAfterItsStart() {
+        PolicyIntervals intervals = PolicyIntervals.of(List.of(
+                period(1, "2025-01-01", null),
+                period(1, "2026-01-01", "2026-02-01")));
+
+        assertThat(intervals.size()).isEqualTo(1);
+        assertThat(intervals.covers(LocalDate.parse("2099-01-01"))).isTrue();
+        assertThat(intervals.covers(LocalDate.parse("2024-12-31"))).isFalse();
+    }
+
+    @Test
+    void refreshesCarOnPolicyChange() {
+        InsurancePolicyRepository repo = Mockito.mock(InsurancePolicyRepository.class);
+        Mockito.when(repo.findAllPeriods()).thenReturn(List.of(period(7, "2024-01-01", "2024-12-31")));
+        PolicyIntervalIndex index = new PolicyIntervalIndex(repo, true);
+        index.load();
+
+        assertThat(index.isReady()).isTrue();
+        assertThat(index.isCovered(7L, LocalDate.parse("2025-03-01"))).isFalse();
+
+        Mockito.when(repo.findPeriodsByCarId(7L)).thenReturn(List.of(
+                period(7, "2024-01-01", "2024-12-31"),
+                period(7, "2025-01-01", "2025-12-31")));
+        Car car = new Car();
+        try {
+            var field = Car.class.getDeclaredField("id");
+            field.setAccessible(true);
+            field.set(car, 7L);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+        index.onPolicyChanged(PolicyChangedEvent.created(
+                new InsurancePolicy(car, "Allianz", LocalDate.parse("2025-01-01"), LocalDate.parse("2025-12-31"))));
+
+        assertThat(index.isCovered(7L, LocalDate.parse("2025-03-01"))).isTrue();
+    }
+
+    @Test
+    void carEmptiedByARefreshDuringTheLoadStaysEmpty() {
+        InsurancePolicyRepository repo = Mockito.mock(InsurancePolicyRepository.class);
+        PolicyIntervalIndex index = new PolicyIntervalIndex(repo, true);
+        Mockito.when(repo.findPeriodsByCarId(7L)).thenReturn(List.of());
+        Mockito.when(repo.findAllPeriods()).thenAnswer(invocation -> {
+            // car 7's only policy moves to another car after the snapshot was read
+            index.refresh(7L);
+            return List.of(period(7, "2024-01-01", "2024-12-31"));
+        });
+
+        index.load();
+
+        assertThat(index.isCovered(7L, LocalDate.parse("2024-06-01"))).isFalse();
+    }
+
+    @Test
+    void refreshThatStartedEarlierCannotOverwriteALaterOne() {
+        InsurancePolicyRepository repo = Mockito.mock(InsurancePolicyRepository.class);
+        PolicyIntervalIndex index = new PolicyIntervalIndex(repo, true);
+        Mockito.when(repo.findPeriodsByCarId(7L))
+                .thenAnswer(invocation -> {
+                    // a second write commits and refreshes while the first refresh is still reading
+                    index.refresh(7L);
+                    return List.of(period(7, "2024-01-01", "2024-12-31"));
+                })
+                .thenReturn(List.of(period(7, "2024-01-01", "2025-12-31")));
+
+        index.refresh(7L);
+
+        assertThat(index.isCovered(7L, LocalDate.parse("2025-06-01"))).isTrue();
+    }
+
+    @Test
+    void disabledIndexIsNeverReady() {
+        InsurancePolicyRepository repo = Mockito.mock(InsurancePolicyRepository.class);
+        PolicyIntervalIndex index = new PolicyIntervalIndex(repo, false);
+        index.load();
+
+        assertThat(index.isReady()).isFalse();
+        Mockito.verifyNoInteractions(repo);
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.carins.service;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.example.carins.model.Car;
+import com.example.carins.model.InsurancePolicy;
+import com.example.carins.repo.InsurancePolicyRepository;
+
+class PolicyServiceTest {
+
+    private final InsurancePolicyRepository policyRepo = Mockito.mock(InsurancePolicyRepository.class);
+    private final CarLockStripes carLocks = Mockito.spy(new CarLockStripes(64));
+    private final PolicyService service = new PolicyService(policyRepo, carLocks,
+            Mockito.mock(PlatformTransactionManager.class));
+
+    private static <T> T withId(T entity, long id) throws ReflectiveOperationException {
+        var field = entity.getClass().getDeclaredField("id");
+        field.setAccessible(true);
+        field.set(entity, id);
+        return entity;
+    }
+
+    private static InsurancePolicy policy(Car car, LocalDate endDate) throws ReflectiveOperationException {
+        return withId(new InsurancePolicy(car, "Allianz", LocalDate.parse("2025-01-01"), endDate), 10);
+    }
+
+    @Test
+    void updateOfAPolicyMovedMeanwhileRelocksItsCurrentCarAndReportsIt() throws Exception {
+        Car car1 = withId(new Car(), 1);
+        Car car2 = withId(new Car(), 2);
+        Car car3 = withId(new Car(), 3);
+        // loaded by the controller while the policy was still on car 1
+        InsurancePolicy stale = policy(car1, LocalDate.parse("2025-06-30"));
+        // a concurrent update has since moved it to car 2
+        InsurancePolicy moved = policy(car2, LocalDate.parse("2025-09-30"));
+        Mockito.when(policyRepo.findById(10L)).thenReturn(Optional.of(moved));
+        Mockito.when(policyRepo.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        PolicyChangedEvent change = service.updatePolicy(stale, car3, "Groupama",
+                LocalDate.parse("2025-01-01"), LocalDate.parse("2025-12-31"));
+
+        Mockito.verify(carLocks).withLocks(Mockito.eq(List.of(1L, 3L)), any());
+        Mockito.verify(carLocks).withLocks(Mockito.eq(List.of(2L, 3L)), any());
+        assertThat(change.policy()).isSameAs(moved);
+        assertThat(change.carId()).isEqualTo(3L);
+        assertThat(change.previousCarId()).isEqualTo(2L);
+        assertThat(change.previousEndDate()).isEqualTo(LocalDate.parse("2025-09-30"));
+        Mockito.verify(policyRepo, Mockito.never()).save(stale);
+    }
+}
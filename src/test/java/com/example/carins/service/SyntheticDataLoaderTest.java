@@ -0,0 +1,52 @@
+package com.example.carins.service;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.flywaydb.core.Flyway;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+class SyntheticDataLoaderTest {
+
+    @Test
+    void bulkLoadsAfterExistingRowsAndMovesIdGeneratorsPastThem() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:synthetic-loader;DB_CLOSE_DELAY=-1");
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration", "classpath:db/demo").load().migrate();
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        SyntheticDataLoader loader = new SyntheticDataLoader(jdbc, 0, 42, "", 1_000);
+
+        SyntheticFleet.Counts counts = loader.load(new SyntheticFleet(42, 3_000, LocalDate.parse("2025-06-30")));
+
+        // demo data: 2 owners, 2 cars, 3 policies
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM car", Long.class)).isEqualTo(2 + counts.cars());
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM owner", Long.class)).isEqualTo(2 + counts.owners());
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM insurancepolicy", Long.class)).isEqualTo(3 + counts.policies());
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM insuranceclaim", Long.class)).isEqualTo(counts.claims());
+        assertThat(jdbc.queryForObject("SELECT MIN(id) FROM car WHERE vin LIKE 'SYN%'", Long.class)).isEqualTo(3);
+
+        long maxPolicy = jdbc.queryForObject("SELECT MAX(id) FROM insurancepolicy", Long.class);
+        long nextBlock = jdbc.queryForObject("SELECT NEXT VALUE FOR insurancepolicy_seq", Long.class);
+        assertThat(nextBlock - 500).isGreaterThanOrEqualTo(maxPolicy);
+        jdbc.update("INSERT INTO owner (name, email) VALUES ('New', 'new@example.com')");
+        assertThat(jdbc.queryForObject("SELECT MAX(id) FROM owner", Long.class)).isEqualTo(2 + counts.owners() + 1);
+    }
+
+    @Test
+    void startupLoadIsSkippedWhenAnEarlierFleetIsStillThere() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:synthetic-restart;DB_CLOSE_DELAY=-1");
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration").load().migrate();
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        SyntheticDataLoader loader = new SyntheticDataLoader(jdbc, 200, 42, "2025-06-30", 1_000);
+
+        loader.onStarted();
+        long cars = jdbc.queryForObject("SELECT COUNT(*) FROM car", Long.class);
+        loader.onStarted();
+
+        assertThat(cars).isEqualTo(200);
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM car", Long.class)).isEqualTo(cars);
+    }
+}
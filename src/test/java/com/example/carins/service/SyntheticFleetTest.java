@@ -0,0 +1,93 @@
+package com.example.carins.service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+
+class SyntheticFleetTest {
+
+    private static final LocalDate AS_OF = LocalDate.parse("2025-06-30");
+    private static final SyntheticFleet.Ids FIRST = new SyntheticFleet.Ids(10, 20, 1000, 5000);
+
+    /** Keeps every row as text, plus the policies and claim counts per car. */
+    private static final class Recorder implements SyntheticFleet.Sink {
+
+        final List<String> rows = new ArrayList<>();
+        final Map<Long, List<LocalDate[]>> policies = new HashMap<>();
+        final Map<Long, Integer> claims = new HashMap<>();
+
+        @Override
+        public void owner(long id, String name, String email) {
+            rows.add("o" + id + name + email);
+        }
+
+        @Override
+        public void car(long id, String vin, String make, String model, int year, long ownerId) {
+            rows.add("c" + id + vin + make + model + year + ownerId);
+        }
+
+        @Override
+        public void policy(long id, long carId, String provider, LocalDate start, LocalDate end) {
+            rows.add("p" + id + carId + provider + start + end);
+            policies.computeIfAbsent(carId, k -> new ArrayList<>()).add(new LocalDate[] { start, end });
+        }
+
+        @Override
+        public void claim(long id, long carId, LocalDate date, String description, long amountCents) {
+            rows.add("x" + id + carId + date + description + amountCents);
+            claims.merge(carId, 1, Integer::sum);
+            assertThat(date).isBeforeOrEqualTo(AS_OF);
+            assertThat(policies.get(carId)).anyMatch(p -> !date.isBefore(p[0]) && !date.isAfter(p[1]));
+        }
+    }
+
+    @Test
+    void sameSeedGivesSameRows() {
+        Recorder a = new Recorder();
+        Recorder b = new Recorder();
+        Recorder other = new Recorder();
+        SyntheticFleet.Counts counts = new SyntheticFleet(7, 500, AS_OF).generate(FIRST, a);
+        new SyntheticFleet(7, 500, AS_OF).generate(FIRST, b);
+        new SyntheticFleet(8, 500, AS_OF).generate(FIRST, other);
+
+        assertThat(a.rows).isEqualTo(b.rows).isNotEqualTo(other.rows);
+        assertThat(counts.total()).isEqualTo(a.rows.size());
+        assertThat(counts.cars()).isEqualTo(500);
+    }
+
+    @Test
+    void policyChainsNeverOverlapAndReachAsOf() {
+        Recorder r = new Recorder();
+        new SyntheticFleet(42, 2_000, AS_OF).generate(FIRST, r);
+
+        int coveringAsOf = 0;
+        for (List<LocalDate[]> chain : r.policies.values()) {
+            for (int i = 1; i < chain.size(); i++) {
+                assertThat(chain.get(i)[0]).isAfter(chain.get(i - 1)[1]);
+            }
+            LocalDate[] last = chain.get(chain.size() - 1);
+            if (!AS_OF.isBefore(last[0]) && !AS_OF.isAfter(last[1])) {
+                coveringAsOf++;
+            }
+        }
+        assertThat(r.policies).hasSize(2_000);
+        // most cars are insured on the as-of date; lapses and cars that left the book are not
+        assertThat(coveringAsOf).isBetween(1_000, 1_950);
+    }
+
+    @Test
+    void claimCountsAreSkewed() {
+        Recorder r = new Recorder();
+        SyntheticFleet.Counts counts = new SyntheticFleet(42, 10_000, AS_OF).generate(FIRST, r);
+
+        List<Integer> perCar = r.claims.values().stream().sorted((x, y) -> y - x).toList();
+        long topTenth = perCar.stream().limit(1_000).mapToLong(Integer::longValue).sum();
+        assertThat(r.claims.size()).isLessThan(5_000);
+        assertThat(topTenth * 2).isGreaterThan(counts.claims());
+    }
+}
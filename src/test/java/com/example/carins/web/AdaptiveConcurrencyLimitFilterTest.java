@@ -0,0 +1,139 @@
+package com.example.carins.web;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.example.carins.web.AdaptiveConcurrencyLimitFilter.Partition;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AdaptiveConcurrencyLimitFilterTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final GradientLimit limit = Mockito.spy(new GradientLimit(8, 8, 8, 1));
+    // limit fixed at 8: validity reserves 3, the others 1 each, and 2 are a shared pool
+    private final AdaptiveConcurrencyLimitFilter filter = new AdaptiveConcurrencyLimitFilter(limit,
+            Map.of(Partition.VALIDITY, 0.375, Partition.DEFAULT, 0.125, Partition.HISTORY, 0.125, Partition.BULK, 0.125),
+            registry);
+
+    @Test
+    void historyIsShedFirstWhileValidityKeepsItsShare() throws Exception {
+        // history uses its reservation and the pool, but not the others' reservations
+        MockHttpServletRequest[] history = new MockHttpServletRequest[3];
+        for (int i = 0; i < history.length; i++) {
+            history[i] = startAsync("GET", "/api/cars/" + i + "/history", 200);
+        }
+        startAsync("GET", "/api/cars/9/history", 503);
+        startAsync("POST", "/api/cars/1/claims/bulk", 200);
+        startAsync("POST", "/api/cars/2/claims/bulk", 503);
+
+        MockHttpServletRequest[] validity = new MockHttpServletRequest[3];
+        for (int i = 0; i < validity.length; i++) {
+            validity[i] = startAsync("GET", "/api/cars/" + i + "/insurance-valid", 200);
+        }
+        MockHttpServletResponse overShare = perform("GET", "/api/cars/3/insurance-valid");
+        assertThat(overShare.getStatus()).isEqualTo(503);
+        assertThat(overShare.getHeader("Retry-After")).isEqualTo("1");
+        startAsync("GET", "/api/cars", 200);
+        assertThat(inflight()).isEqualTo(8);
+        // the limit is full: not even a partition within its reservation gets past it
+        startAsync("GET", "/api/cars/1", 503);
+
+        assertThat(rejected("history")).isEqualTo(1);
+        assertThat(rejected("bulk")).isEqualTo(1);
+        assertThat(rejected("validity")).isEqualTo(1);
+        assertThat(rejected("default")).isEqualTo(1);
+        assertThat(registry.get("carins.concurrency.limit").gauge().value()).isEqualTo(8);
+        assertThat(registry.get("carins.concurrency.partition.limit").tag("partition", "validity").gauge().value())
+                .isEqualTo(3);
+        assertThat(registry.get("carins.concurrency.inflight").tag("partition", "history").gauge().value()).isEqualTo(3);
+
+        // permits are held until the async response completes; then validity may borrow the pool
+        for (MockHttpServletRequest request : history) {
+            ((MockAsyncContext) request.getAsyncContext()).complete();
+        }
+        assertThat(filter.inflight(Partition.HISTORY)).isZero();
+        startAsync("GET", "/api/cars/4/insurance-valid", 200);
+        startAsync("GET", "/api/cars/5/insurance-valid", 200);
+        startAsync("GET", "/api/cars/6/insurance-valid", 503);
+        startAsync("GET", "/api/cars/9/history", 200);
+        assertThat(inflight()).isEqualTo(8);
+
+        ((MockAsyncContext) validity[0].getAsyncContext()).complete();
+        assertThat(filter.inflight(Partition.VALIDITY)).isEqualTo(4);
+    }
+
+    @Test
+    void onlyValidityAndSingleRequestsMoveTheLimit() throws Exception {
+        MockHttpServletRequest history = startAsync("GET", "/api/cars/1/history", 200);
+        MockHttpServletRequest bulk = startAsync("POST", "/api/cars/1/claims/bulk", 200);
+        MockHttpServletRequest validity = startAsync("GET", "/api/cars/1/insurance-valid", 200);
+        MockHttpServletRequest single = startAsync("GET", "/api/cars", 200);
+
+        ((MockAsyncContext) history.getAsyncContext()).complete();
+        ((MockAsyncContext) bulk.getAsyncContext()).complete();
+        Mockito.verify(limit, Mockito.never()).onSample(Mockito.anyLong(), Mockito.anyInt());
+
+        ((MockAsyncContext) validity.getAsyncContext()).complete();
+        ((MockAsyncContext) single.getAsyncContext()).complete();
+        Mockito.verify(limit, Mockito.times(2)).onSample(Mockito.anyLong(), Mockito.anyInt());
+    }
+
+    @Test
+    void rejectsSharesAddingUpToMoreThanTheLimit() {
+        assertThatThrownBy(() -> new AdaptiveConcurrencyLimitFilter(new GradientLimit(8, 8, 8, 1),
+                Map.of(Partition.VALIDITY, 0.5, Partition.DEFAULT, 0.25, Partition.HISTORY, 0.25, Partition.BULK, 0.25),
+                new SimpleMeterRegistry()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void classifiesEndpointsAndLeavesNonApiRequestsAlone() throws Exception {
+        assertThat(Partition.of(new MockHttpServletRequest("GET", "/api/cars/1/insurance-valid"))).isEqualTo(Partition.VALIDITY);
+        assertThat(Partition.of(new MockHttpServletRequest("POST", "/api/cars/insurance-valid"))).isEqualTo(Partition.BULK);
+        assertThat(Partition.of(new MockHttpServletRequest("POST", "/api/policies/import"))).isEqualTo(Partition.BULK);
+        assertThat(Partition.of(new MockHttpServletRequest("GET", "/api/cars/export"))).isEqualTo(Partition.BULK);
+        assertThat(Partition.of(new MockHttpServletRequest("GET", "/api/analytics/claims"))).isEqualTo(Partition.HISTORY);
+        assertThat(Partition.of(new MockHttpServletRequest("GET", "/api/cars"))).isEqualTo(Partition.DEFAULT);
+        assertThat(Partition.of(new MockHttpServletRequest("POST", "/api/cars/1/claims"))).isEqualTo(Partition.DEFAULT);
+
+        for (int i = 0; i < 10; i++) {
+            // default reserves 1 and may borrow the pool of 2
+            startAsync("GET", "/api/cars", i < 3 ? 200 : 503);
+        }
+        assertThat(perform("GET", "/actuator/health").getStatus()).isEqualTo(200);
+    }
+
+    /** Runs a request whose handler goes async and stays open, holding its permit. */
+    private MockHttpServletRequest startAsync(String method, String uri, int expectedStatus) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        request.setAsyncSupported(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, (req, res) -> req.startAsync());
+        assertThat(response.getStatus()).as(method + " " + uri).isEqualTo(expectedStatus);
+        return request;
+    }
+
+    private MockHttpServletResponse perform(String method, String uri) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest(method, uri), response, new MockFilterChain());
+        return response;
+    }
+
+    private int inflight() {
+        return Arrays.stream(Partition.values()).mapToInt(filter::inflight).sum();
+    }
+
+    private double rejected(String partition) {
+        return registry.get("carins.concurrency.rejected").tag("partition", partition).counter().count();
+    }
+}
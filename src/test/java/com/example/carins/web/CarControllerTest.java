@@ -2,38 +2,72 @@ package com.example.carins.web;
 
 import com.example.carins.model.Car;
 import com.example.carins.model.InsuranceClaim;
+import com.example.carins.repo.PolicyPeriod;
+import com.example.carins.service.CarHistoryService;
 import com.example.carins.service.CarService;
+import com.example.carins.service.ClaimService;
+import com.example.carins.service.DataVersions;
+import com.example.carins.service.PolicyIntervals;
+import com.example.carins.web.dto.CarDto;
+import com.example.carins.web.dto.CarFilter;
+import com.example.carins.web.dto.CarPage;
+import com.example.carins.web.dto.ClaimHistoryEvent;
+import com.example.carins.web.dto.HistoryPage;
+import com.example.carins.web.dto.PolicyHistoryEvent;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
 
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
-@WebMvcTest(CarController.class)
+@WebMvcTest(controllers = CarController.class, properties = {
+        "carins.async.history.threads=1", "carins.async.history.queue-capacity=1", "carins.async.history.timeout=PT1S" })
+@Import({ DataVersions.class, EndpointBulkheads.class })
 class CarControllerTest {
 
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private DataVersions versions;
+
     @MockBean
     private CarService carService;
 
     @MockBean
-    private com.example.carins.repo.InsurancePolicyRepository insurancePolicyRepository;
+    private CarHistoryService carHistoryService;
+
+    @MockBean
+    private ClaimService claimService;
 
     @MockBean
     private com.example.carins.repo.InsuranceClaimRepository insuranceClaimRepository;
 
+    /** Validity and history complete on a bulkhead thread: dispatch again once the result is in. */
+    private ResultActions performAsync(RequestBuilder builder) throws Exception {
+        MvcResult started = mockMvc.perform(builder).andExpect(request().asyncStarted()).andReturn();
+        return mockMvc.perform(asyncDispatch(started));
+    }
+
     // Mock a car for valid tests
     private Car mockCar() {
         Car car = new Car();
@@ -50,40 +84,109 @@ class CarControllerTest {
 
     @Test
     void insuranceValid_returns404ForMissingCar() throws Exception {
-        when(carService.listCars()).thenReturn(List.of()); // No cars
-        mockMvc.perform(get("/api/cars/999/insurance-valid?date=2025-09-07"))
+        when(carService.carExists(999L)).thenReturn(false); // No such car
+        performAsync(get("/api/cars/999/insurance-valid?date=2025-09-07"))
                 .andExpect(status().isNotFound())
                 .andExpect(content().string("Car not found"));
     }
 
     @Test
     void insuranceValid_returns400ForInvalidDateFormat() throws Exception {
-        when(carService.listCars()).thenReturn(List.of(mockCar()));
-        mockMvc.perform(get("/api/cars/1/insurance-valid?date=not-a-date"))
+        when(carService.carExists(1L)).thenReturn(true);
+        performAsync(get("/api/cars/1/insurance-valid?date=not-a-date"))
                 .andExpect(status().isBadRequest())
                 .andExpect(content().string("Invalid date format. Use ISO YYYY-MM-DD."));
     }
 
     @Test
     void insuranceValid_returns400ForImpossibleDate() throws Exception {
-        when(carService.listCars()).thenReturn(List.of(mockCar()));
-        mockMvc.perform(get("/api/cars/1/insurance-valid?date=1800-01-01"))
+        when(carService.carExists(1L)).thenReturn(true);
+        performAsync(get("/api/cars/1/insurance-valid?date=1800-01-01"))
                 .andExpect(status().isBadRequest())
                 .andExpect(content().string("Date out of supported range (1900-01-01 to 2100-12-31)."));
     }
 
     @Test
     void insuranceValid_returnsOkForValidRequest() throws Exception {
-        when(carService.listCars()).thenReturn(List.of(mockCar()));
+        when(carService.carExists(1L)).thenReturn(true);
         when(carService.isInsuranceValid(1L, LocalDate.of(2025, 9, 7))).thenReturn(true);
 
-        mockMvc.perform(get("/api/cars/1/insurance-valid?date=2025-09-07"))
+        performAsync(get("/api/cars/1/insurance-valid?date=2025-09-07"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.carId").value(1))
                 .andExpect(jsonPath("$.date").value("2025-09-07"))
                 .andExpect(jsonPath("$.valid").value(true));
     }
 
+    @Test
+    void getCars_returnsPageWithNextLink() throws Exception {
+        var dto = new CarDto(1L, "VIN123", "Dacia", "Logan", 2018, 1L, "Ana Pop", "ana.pop@example.com");
+        when(carService.findCars(new CarFilter("Dacia", null, null, null), null, 1))
+                .thenReturn(new CarPage(List.of(dto), 1L));
+
+        mockMvc.perform(get("/api/cars?make=Dacia&limit=1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].vin").value("VIN123"))
+                .andExpect(jsonPath("$[0].ownerName").value("Ana Pop"))
+                .andExpect(header().string("Link", "<http://localhost/api/cars?make=Dacia&limit=1&after=1>; rel=\"next\""));
+    }
+
+    @Test
+    void getCars_capsPageSizeAndOmitsLinkOnLastPage() throws Exception {
+        when(carService.findCars(CarFilter.NONE, 5L, 1000)).thenReturn(new CarPage(List.of(), null));
+
+        mockMvc.perform(get("/api/cars?after=5&limit=50000"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Link"));
+    }
+
+    @Test
+    void insuranceValidBatch_returnsPerItemResults() throws Exception {
+        when(carService.findExistingCarIds(any())).thenReturn(Set.of(1L));
+        when(carService.policyIntervalsFor(any())).thenReturn(Map.of(1L, PolicyIntervals.of(List.of(
+                new PolicyPeriod(10L, 1L, LocalDate.of(2025, 1, 1), LocalDate.of(2025, 12, 31))))));
+
+        String json = """
+            [
+                { "carId": 1, "date": "2025-06-01" },
+                { "carId": 1, "date": "2026-06-01" },
+                { "carId": 999, "date": "2025-06-01" },
+                { "carId": 1, "date": "not-a-date" },
+                { "carId": 1, "date": "1800-01-01" }
+            ]
+            """;
+
+        mockMvc.perform(post("/api/cars/insurance-valid")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value(200))
+                .andExpect(jsonPath("$[0].valid").value(true))
+                .andExpect(jsonPath("$[1].status").value(200))
+                .andExpect(jsonPath("$[1].valid").value(false))
+                .andExpect(jsonPath("$[2].status").value(404))
+                .andExpect(jsonPath("$[2].error").value("Car not found"))
+                .andExpect(jsonPath("$[3].status").value(400))
+                .andExpect(jsonPath("$[3].error").value("Invalid date format. Use ISO YYYY-MM-DD."))
+                .andExpect(jsonPath("$[4].status").value(400))
+                .andExpect(jsonPath("$[4].error").value("Date out of supported range (1900-01-01 to 2100-12-31)."));
+    }
+
+    @Test
+    void insuranceValidBatch_reportsNullCheckAsBadItem() throws Exception {
+        when(carService.findExistingCarIds(any())).thenReturn(Set.of(1L));
+        when(carService.policyIntervalsFor(any())).thenReturn(Map.of());
+
+        mockMvc.perform(post("/api/cars/insurance-valid")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[ null, { \"carId\": 1, \"date\": \"2025-06-01\" } ]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value(400))
+                .andExpect(jsonPath("$[0].error").value("Check is required"))
+                .andExpect(jsonPath("$[1].status").value(200))
+                .andExpect(jsonPath("$[1].valid").value(false));
+    }
+
     @Test
     void registerClaim_returns201ForValidClaim() throws Exception {
         Car car = new Car();
@@ -91,7 +194,7 @@ class CarControllerTest {
         carIdField.setAccessible(true);
         carIdField.set(car, 1L);
 
-        when(carService.listCars()).thenReturn(List.of(car));
+        when(carService.findCar(1L)).thenReturn(Optional.of(car));
 
         // Prepare claim with ID set
         InsuranceClaim claim = new InsuranceClaim();
@@ -132,7 +235,7 @@ class CarControllerTest {
                 "amount": null
             }
             """;
-        when(carService.listCars()).thenReturn(List.of());
+        when(carService.findCar(1L)).thenReturn(Optional.empty());
 
         mockMvc.perform(post("/api/cars/1/claims")
                 .contentType(MediaType.APPLICATION_JSON)
@@ -142,7 +245,7 @@ class CarControllerTest {
 
     @Test
     void registerClaim_returns404ForMissingCar() throws Exception {
-        when(carService.listCars()).thenReturn(List.of());
+        when(carService.findCar(999L)).thenReturn(Optional.empty());
 
         String json = """
             {
@@ -161,52 +264,197 @@ class CarControllerTest {
 
     @Test
     void getCarHistory_returns404ForMissingCar() throws Exception {
-        when(carService.listCars()).thenReturn(List.of());
+        when(carService.carExists(999L)).thenReturn(false);
 
-        mockMvc.perform(get("/api/cars/999/history"))
+        performAsync(get("/api/cars/999/history"))
                 .andExpect(status().isNotFound())
                 .andExpect(content().string("Car not found"));
     }
 
     @Test
     void getCarHistory_returnsChronologicalEvents() throws Exception {
-        Car car = mockCar();
-
-        when(carService.listCars()).thenReturn(List.of(car));
+        when(carService.carExists(1L)).thenReturn(true);
+        when(carHistoryService.getHistory(1L, null, null, null, 100)).thenReturn(new HistoryPage(List.of(
+                new PolicyHistoryEvent(2L, LocalDate.of(2025, 1, 1), LocalDate.of(2025, 12, 31), "ProviderX"),
+                new ClaimHistoryEvent(1L, LocalDate.of(2025, 9, 6), "Accident", BigDecimal.valueOf(1200.50))), null));
 
-        // Mock claims
-        InsuranceClaim claim = new InsuranceClaim();
-        var claimIdField = InsuranceClaim.class.getDeclaredField("id");
-        claimIdField.setAccessible(true);
-        claimIdField.set(claim, 1L);
-        claim.setCar(car);
-        claim.setClaimDate(LocalDate.of(2025, 9, 6));
-        claim.setDescription("Accident");
-        claim.setAmount(BigDecimal.valueOf(1200.50));
-
-        when(insuranceClaimRepository.findByCarIdOrderByClaimDateAsc(1L)).thenReturn(List.of(claim));
-
-        // Mock policies
-        com.example.carins.model.InsurancePolicy policy = new com.example.carins.model.InsurancePolicy();
-        var policyIdField = com.example.carins.model.InsurancePolicy.class.getDeclaredField("id");
-        policyIdField.setAccessible(true);
-        policyIdField.set(policy, 2L);
-        policy.setCar(car);
-        policy.setStartDate(LocalDate.of(2025, 1, 1));
-        policy.setEndDate(LocalDate.of(2025, 12, 31));
-        policy.setProvider("ProviderX");
-
-        when(insurancePolicyRepository.findAll()).thenReturn(List.of(policy));
-
-        mockMvc.perform(get("/api/cars/1/history"))
+        performAsync(get("/api/cars/1/history"))
                 .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Link"))
                 .andExpect(jsonPath("$[0].type").value("POLICY"))
                 .andExpect(jsonPath("$[0].startDate").value("2025-01-01"))
                 .andExpect(jsonPath("$[0].endDate").value("2025-12-31"))
                 .andExpect(jsonPath("$[0].provider").value("ProviderX"))
+                .andExpect(jsonPath("$[0].eventDate").doesNotExist())
                 .andExpect(jsonPath("$[1].type").value("CLAIM"))
                 .andExpect(jsonPath("$[1].date").value("2025-09-06"))
                 .andExpect(jsonPath("$[1].description").value("Accident"))
                 .andExpect(jsonPath("$[1].amount").value(1200.50));
     }
+
+    @Test
+    void getCarHistory_passesRangeAndLinksNextPage() throws Exception {
+        when(carService.carExists(1L)).thenReturn(true);
+        when(carHistoryService.getHistory(1L, LocalDate.of(2025, 1, 1), LocalDate.of(2025, 12, 31), "abc", 1))
+                .thenReturn(new HistoryPage(List.of(
+                        new ClaimHistoryEvent(1L, LocalDate.of(2025, 9, 6), "Accident", BigDecimal.TEN)), "def"));
+
+        performAsync(get("/api/cars/1/history?from=2025-01-01&to=2025-12-31&after=abc&limit=1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Link",
+                        "<http://localhost/api/cars/1/history?from=2025-01-01&to=2025-12-31&limit=1&after=def>; rel=\"next\""))
+                .andExpect(jsonPath("$[0].claimId").value(1));
+    }
+
+    @Test
+    void getCarHistory_returns400ForInvalidRange() throws Exception {
+        when(carService.carExists(1L)).thenReturn(true);
+
+        performAsync(get("/api/cars/1/history?from=yesterday"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Invalid date format. Use ISO YYYY-MM-DD."));
+    }
+
+    @Test
+    void registerClaims_insertsAllRowsWhenValid() throws Exception {
+        when(carService.carExists(1L)).thenReturn(true);
+        when(claimService.registerClaims(eq(1L), anyList())).thenReturn(List.of(500L, 501L));
+
+        String json = """
+            [
+                { "claimDate": "2025-09-06", "description": "Accident", "amount": 1200.50 },
+                { "claimDate": "2025-09-07", "description": "Windshield", "amount": 300 }
+            ]
+            """;
+
+        mockMvc.perform(post("/api/cars/1/claims/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.created").value(2))
+                .andExpect(jsonPath("$.claimIds[1]").value(501));
+    }
+
+    @Test
+    void registerClaims_reportsEveryInvalidRowAndInsertsNothing() throws Exception {
+        when(carService.carExists(1L)).thenReturn(true);
+
+        String json = """
+            [
+                { "claimDate": "2025-09-06", "description": "Accident", "amount": 1200.50 },
+                { "claimDate": "2025-09-07", "description": "Windshield", "amount": -5 },
+                null,
+                { "description": "Hail" }
+            ]
+            """;
+
+        mockMvc.perform(post("/api/cars/1/claims/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[0].index").value(1))
+                .andExpect(jsonPath("$[0].error").value("Amount must be positive"))
+                .andExpect(jsonPath("$[1].error").value("Claim is required"))
+                .andExpect(jsonPath("$[2].index").value(3))
+                .andExpect(jsonPath("$[2].error").value("Amount is required; Claim date is required"));
+        verifyNoInteractions(claimService);
+    }
+
+    @Test
+    void registerClaims_returns404ForMissingCar() throws Exception {
+        when(carService.carExists(999L)).thenReturn(false);
+
+        mockMvc.perform(post("/api/cars/999/claims/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[ { \"claimDate\": \"2025-09-06\", \"description\": \"Accident\", \"amount\": 1 } ]"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void getCarHistory_answers304WithoutQueryingWhileETagIsCurrent() throws Exception {
+        when(carService.carExists(1L)).thenReturn(true);
+        when(carHistoryService.getHistory(1L, null, null, null, 100)).thenReturn(new HistoryPage(List.of(), null));
+
+        String etag = performAsync(get("/api/cars/1/history"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        performAsync(get("/api/cars/1/history").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag))
+                .andExpect(content().string(""));
+        verify(carHistoryService, times(1)).getHistory(1L, null, null, null, 100);
+
+        // a write to another car leaves this car's tag alone, a write to this car changes it
+        versions.carChanged(2L, false);
+        performAsync(get("/api/cars/1/history").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+        versions.carChanged(1L, false);
+        performAsync(get("/api/cars/1/history").header("If-None-Match", etag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void getCarHistory_returns404ForUnknownCarEvenWithWildcardETag() throws Exception {
+        when(carService.carExists(999L)).thenReturn(false);
+
+        performAsync(get("/api/cars/999/history").header("If-None-Match", "*"))
+                .andExpect(status().isNotFound())
+                .andExpect(content().string("Car not found"));
+        verifyNoInteractions(carHistoryService);
+    }
+
+    @Test
+    void getCars_answers304UntilFleetChanges() throws Exception {
+        when(carService.findCars(CarFilter.NONE, null, 100)).thenReturn(new CarPage(List.of(), null));
+
+        String etag = mockMvc.perform(get("/api/cars"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/cars").header("If-None-Match", "W/" + etag))
+                .andExpect(status().isNotModified());
+        verify(carService, times(1)).findCars(CarFilter.NONE, null, 100);
+
+        versions.fleetChanged();
+        mockMvc.perform(get("/api/cars").header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", org.hamcrest.Matchers.not(etag)));
+    }
+
+    @Test
+    void slowHistoryIsShedWithout503ForValidity() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch working = new CountDownLatch(1);
+        when(carService.carExists(anyLong())).thenReturn(true);
+        when(carService.isInsuranceValid(1L, LocalDate.of(2025, 9, 7))).thenReturn(true);
+        when(carHistoryService.getHistory(anyLong(), any(), any(), any(), anyInt())).thenAnswer(inv -> {
+            working.countDown();
+            release.await();
+            return new HistoryPage(List.of(), null);
+        });
+        try {
+            // one history worker busy and one request queued: the next one is turned away at once
+            MvcResult running = mockMvc.perform(get("/api/cars/1/history")).andReturn();
+            working.await();
+            MvcResult queued = mockMvc.perform(get("/api/cars/2/history")).andReturn();
+            performAsync(get("/api/cars/3/history"))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().string("Retry-After", "1"))
+                    .andExpect(content().string("Too many history requests, retry later."));
+
+            performAsync(get("/api/cars/1/insurance-valid?date=2025-09-07"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.valid").value(true));
+
+            mockMvc.perform(asyncDispatch(running))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(content().string("The history request timed out, retry later."));
+            mockMvc.perform(asyncDispatch(queued))
+                    .andExpect(status().isServiceUnavailable());
+        } finally {
+            release.countDown();
+        }
+    }
 }
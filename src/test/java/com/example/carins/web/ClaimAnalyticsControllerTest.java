@@ -0,0 +1,60 @@
+package com.example.carins.web;
+
+import com.example.carins.service.ClaimAnalytics;
+import com.example.carins.service.ClaimGrouping;
+import com.example.carins.web.dto.ClaimAnalyticsReport;
+import com.example.carins.web.dto.ClaimGroupStats;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(ClaimAnalyticsController.class)
+class ClaimAnalyticsControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ClaimAnalytics analytics;
+
+    @Test
+    void claimStats_returnsGroupsForRange() throws Exception {
+        LocalDate from = LocalDate.parse("2025-01-01");
+        LocalDate to = LocalDate.parse("2025-03-31");
+        BigDecimal amount = new BigDecimal("120.50");
+        when(analytics.aggregate(ClaimGrouping.PROVIDER, from, to)).thenReturn(new ClaimAnalyticsReport(
+                "provider", from, to, 1, amount,
+                List.of(new ClaimGroupStats("Allianz", 1, amount, amount, amount, amount, amount))));
+
+        mockMvc.perform(get("/api/analytics/claims?groupBy=provider&from=2025-01-01&to=2025-03-31"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.groupBy").value("provider"))
+                .andExpect(jsonPath("$.groups[0].key").value("Allianz"))
+                .andExpect(jsonPath("$.groups[0].p90").value(120.50));
+    }
+
+    @Test
+    void claimStats_rejectsUnknownGroupingAndBadRanges() throws Exception {
+        mockMvc.perform(get("/api/analytics/claims?groupBy=owner"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("groupBy must be one of: car, provider, month."));
+        mockMvc.perform(get("/api/analytics/claims?from=01-01-2025"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Invalid date format. Use ISO YYYY-MM-DD."));
+        mockMvc.perform(get("/api/analytics/claims?from=2025-02-01&to=2025-01-01"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("To date must not be before from date."));
+        Mockito.verifyNoInteractions(analytics);
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.carins.web;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import jakarta.servlet.FilterChain;
+
+class ConnectionPoolConcurrencyFilterTest {
+
+    @Test
+    void rejectsApiRequestsBeyondPoolSizeOnceTheWaitTimesOut() throws Exception {
+        ConnectionPoolConcurrencyFilter filter = new ConnectionPoolConcurrencyFilter(1, Duration.ofMillis(50));
+        CountDownLatch inside = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        FilterChain blocking = (req, res) -> {
+            inside.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        Thread holder = Thread.ofVirtual().start(() -> {
+            try {
+                filter.doFilter(new MockHttpServletRequest("GET", "/api/cars"), new MockHttpServletResponse(), blocking);
+            } catch (Exception ex) {
+                throw new IllegalStateException(ex);
+            }
+        });
+        assertThat(inside.await(5, TimeUnit.SECONDS)).isTrue();
+
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/cars/1/insurance-valid"), rejected, new MockFilterChain());
+        assertThat(rejected.getStatus()).isEqualTo(503);
+        assertThat(rejected.getHeader("Retry-After")).isEqualTo("1");
+
+        // non-API requests (actuator, console) are not limited
+        MockHttpServletResponse health = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/actuator/health"), health, new MockFilterChain());
+        assertThat(health.getStatus()).isEqualTo(200);
+
+        release.countDown();
+        holder.join(5000);
+        assertThat(filter.availablePermits()).isEqualTo(1);
+    }
+
+    @Test
+    void asyncRequestsHoldTheirPermitUntilTheResponseCompletes() throws Exception {
+        ConnectionPoolConcurrencyFilter filter = new ConnectionPoolConcurrencyFilter(1, Duration.ofMillis(50));
+        MockHttpServletRequest async = new MockHttpServletRequest("GET", "/api/cars/1/history");
+        async.setAsyncSupported(true);
+        filter.doFilter(async, new MockHttpServletResponse(), (req, res) -> req.startAsync());
+        assertThat(filter.availablePermits()).isZero();
+
+        // the servlet thread has returned, but the work behind the future still needs a connection
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/cars/2/insurance-valid"), rejected, new MockFilterChain());
+        assertThat(rejected.getStatus()).isEqualTo(503);
+
+        ((MockAsyncContext) async.getAsyncContext()).complete();
+        assertThat(filter.availablePermits()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.carins.web;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class EndpointBulkheadsTest {
+
+    @Test
+    void withoutThreadsTheWorkRunsInlineOnTheCallingThread() {
+        EndpointBulkheads.Bulkhead inline = new EndpointBulkheads.Bulkhead("validity", 0, 0, Duration.ofSeconds(1),
+                new SimpleMeterRegistry());
+        Thread caller = Thread.currentThread();
+
+        var result = inline.submit(() -> ResponseEntity.ok(Thread.currentThread() == caller));
+
+        assertThat(result).isCompletedWithValueMatching(response -> Boolean.TRUE.equals(response.getBody()));
+        inline.shutdown();
+    }
+
+    @Test
+    void timedOutWorkIsInterruptedAndAnswers503() throws Exception {
+        EndpointBulkheads.Bulkhead bulkhead = new EndpointBulkheads.Bulkhead("history", 1, 1, Duration.ofMillis(50),
+                new SimpleMeterRegistry());
+        CountDownLatch interrupted = new CountDownLatch(1);
+        CountDownLatch never = new CountDownLatch(1);
+
+        var result = bulkhead.submit(() -> {
+            try {
+                never.await();
+            } catch (InterruptedException ex) {
+                interrupted.countDown();
+            }
+            return ResponseEntity.ok("late");
+        });
+
+        assertThat(result.get(5, TimeUnit.SECONDS).getStatusCode().value()).isEqualTo(503);
+        assertThat(interrupted.await(5, TimeUnit.SECONDS)).as("worker interrupted").isTrue();
+        bulkhead.shutdown();
+    }
+}
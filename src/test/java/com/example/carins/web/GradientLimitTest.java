@@ -0,0 +1,67 @@
+package com.example.carins.web;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+
+class GradientLimitTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(100);
+
+    @Test
+    void growsWhileLatencyHoldsAtFullLoadUpToMax() {
+        GradientLimit limit = new GradientLimit(10, 2, 40, 5);
+
+        feed(limit, FAST, 100);
+        assertThat(limit.limit()).isGreaterThan(10);
+
+        feed(limit, FAST, 10_000);
+        assertThat(limit.limit()).isEqualTo(40);
+    }
+
+    @Test
+    void shrinksWhenLatencyRisesUntilTheSlowerLatencyBecomesTheBaseline() {
+        GradientLimit limit = new GradientLimit(30, 5, 100, 5);
+        feed(limit, FAST, 50);
+        int settled = limit.limit();
+
+        feed(limit, SLOW, 50);
+        int shrunk = limit.limit();
+        assertThat(shrunk).isLessThan(settled);
+
+        feed(limit, SLOW, 5_000);
+        assertThat(limit.limit()).isGreaterThan(shrunk);
+    }
+
+    @Test
+    void neverShrinksBelowMin() {
+        GradientLimit limit = new GradientLimit(5, 5, 100, 5);
+        feed(limit, FAST, 5);
+
+        feed(limit, SLOW * 10, 50);
+
+        assertThat(limit.limit()).isEqualTo(5);
+    }
+
+    @Test
+    void ignoresWindowsWithFewRequestsInFlight() {
+        GradientLimit limit = new GradientLimit(20, 2, 100, 5);
+        feed(limit, FAST, 50);
+        int settled = limit.limit();
+
+        for (int i = 0; i < 500; i++) {
+            limit.onSample(SLOW, 1);
+        }
+
+        assertThat(limit.limit()).isEqualTo(settled);
+    }
+
+    /** Samples taken with as many requests in flight as the limit currently allows. */
+    private static void feed(GradientLimit limit, long rttNanos, int samples) {
+        for (int i = 0; i < samples; i++) {
+            limit.onSample(rttNanos, limit.limit());
+        }
+    }
+}
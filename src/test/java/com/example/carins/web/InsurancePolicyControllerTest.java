@@ -4,7 +4,14 @@ import com.example.carins.model.Car;
 import com.example.carins.model.InsurancePolicy;
 import com.example.carins.repo.CarRepository;
 import com.example.carins.repo.InsurancePolicyRepository;
+import com.example.carins.repo.PolicyPeriod;
+import com.example.carins.service.PolicyChangedEvent;
+import com.example.carins.service.PolicyImportService;
+import com.example.carins.service.PolicyOverlapException;
+import com.example.carins.service.PolicyService;
 import com.example.carins.web.dto.InsurancePolicyDto;
+import com.example.carins.web.dto.PolicyImportRejection;
+import com.example.carins.web.dto.PolicyImportReport;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
@@ -14,6 +21,7 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.http.MediaType;
 
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.any;
@@ -34,6 +42,12 @@ class InsurancePolicyControllerTest {
     @MockBean
     private CarRepository carRepo;
 
+    @MockBean
+    private PolicyService policyService;
+
+    @MockBean
+    private PolicyImportService importService;
+
     @Test
     void createPolicy_returnsOkForValidRequest() throws Exception {
         Car car = new Car();
@@ -41,8 +55,9 @@ class InsurancePolicyControllerTest {
         carIdField.setAccessible(true);
         carIdField.set(car, 1L);
 
-        when(carRepo.findById(1L)).thenReturn(Optional.of(car));
-        when(policyRepo.save(any())).thenAnswer(inv -> inv.getArgument(0));
+        when(carRepo.findWithOwnerById(1L)).thenReturn(Optional.of(car));
+        when(policyService.createPolicy(any(), any(), any(), any())).thenAnswer(inv ->
+                new InsurancePolicy(inv.getArgument(0), inv.getArgument(1), inv.getArgument(2), inv.getArgument(3)));
 
         String json = """
             {
@@ -64,7 +79,7 @@ class InsurancePolicyControllerTest {
 
     @Test
     void createPolicy_returns400ForMissingCar() throws Exception {
-        when(carRepo.findById(99L)).thenReturn(Optional.empty());
+        when(carRepo.findWithOwnerById(99L)).thenReturn(Optional.empty());
 
         String json = """
             {
@@ -95,8 +110,15 @@ class InsurancePolicyControllerTest {
         policyIdField.set(policy, 10L);
 
         when(policyRepo.findById(10L)).thenReturn(Optional.of(policy));
-        when(carRepo.findById(1L)).thenReturn(Optional.of(car));
-        when(policyRepo.save(any())).thenAnswer(inv -> inv.getArgument(0));
+        when(carRepo.findWithOwnerById(1L)).thenReturn(Optional.of(car));
+        when(policyService.updatePolicy(any(), any(), any(), any(), any())).thenAnswer(inv -> {
+            InsurancePolicy updated = inv.getArgument(0);
+            updated.setCar(inv.getArgument(1));
+            updated.setProvider(inv.getArgument(2));
+            updated.setStartDate(inv.getArgument(3));
+            updated.setEndDate(inv.getArgument(4));
+            return new PolicyChangedEvent(updated, null, null);
+        });
 
         String json = """
             {
@@ -143,7 +165,7 @@ class InsurancePolicyControllerTest {
         policyIdField.set(policy, 10L);
 
         when(policyRepo.findById(10L)).thenReturn(Optional.of(policy));
-        when(carRepo.findById(99L)).thenReturn(Optional.empty());
+        when(carRepo.findWithOwnerById(99L)).thenReturn(Optional.empty());
 
         String json = """
             {
@@ -160,4 +182,63 @@ class InsurancePolicyControllerTest {
                 .andExpect(status().isBadRequest())
                 .andExpect(content().string("Car not found"));
     }
+
+    @Test
+    void createPolicy_returns409WhenCarAlreadyCovered() throws Exception {
+        Car car = new Car();
+        var carIdField = Car.class.getDeclaredField("id");
+        carIdField.setAccessible(true);
+        carIdField.set(car, 1L);
+
+        when(carRepo.findWithOwnerById(1L)).thenReturn(Optional.of(car));
+        when(policyService.createPolicy(any(), any(), any(), any())).thenThrow(new PolicyOverlapException(
+                new PolicyPeriod(2L, 1L, LocalDate.parse("2025-01-01"), LocalDate.parse("2026-01-01"))));
+
+        String json = """
+            {
+                "carId": 1,
+                "provider": "ProviderX",
+                "startDate": "2025-06-01",
+                "endDate": "2026-05-31"
+            }
+            """;
+
+        mockMvc.perform(post("/api/policies")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json))
+                .andExpect(status().isConflict())
+                .andExpect(content().string("Overlaps policy 2 of car 1 (2025-01-01 to 2026-01-01)."));
+    }
+
+    @Test
+    void createPolicy_returns400WhenEndDateBeforeStartDate() throws Exception {
+        String json = """
+            {
+                "carId": 1,
+                "provider": "ProviderX",
+                "startDate": "2025-06-01",
+                "endDate": "2025-05-31"
+            }
+            """;
+
+        mockMvc.perform(post("/api/policies")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("End date must not be before start date."));
+    }
+
+    @Test
+    void importPolicies_streamsCsvBodyAndReturnsReport() throws Exception {
+        when(importService.importCsv(any())).thenReturn(new PolicyImportReport(2, 1, 1,
+                List.of(new PolicyImportRejection(3, "Car not found")), false));
+
+        mockMvc.perform(post("/api/policies/import")
+                .contentType("text/csv")
+                .content("carId,provider,startDate,endDate\n1,Allianz,2027-01-01,2027-12-31\n999,Allianz,2027-01-01,2027-12-31\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(1))
+                .andExpect(jsonPath("$.rejections[0].line").value(3))
+                .andExpect(jsonPath("$.rejections[0].error").value("Car not found"));
+    }
 }